@@ -0,0 +1,56 @@
+package gr.aegean.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+
+import gr.aegean.deserializer.DvdGenreDeserializer;
+import gr.aegean.model.dvd.DvdGenre;
+
+
+/**
+ * DvdGenreDeserializer.deserialize on a parser positioned at the genre. Creating the parser is part of the measured
+ * time, it is the same for every input.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DvdGenreDeserializerBenchmark {
+    @Param({"ADVENTURE", " science  fiction "})
+    private String genre;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final DvdGenreDeserializer deserializer = new DvdGenreDeserializer();
+    private byte[] json;
+
+    @Setup
+    public void setup() {
+        json = ('"' + genre + '"').getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public DvdGenre deserialize() throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            parser.nextToken();
+
+            return deserializer.deserialize(parser, null);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package gr.aegean.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import gr.aegean.config.DeserializerConfig;
+import gr.aegean.model.dto.dvd.DvdDTO;
+import gr.aegean.model.dvd.DvdGenre;
+
+
+/**
+ * Serialization of a page of Dvds to JSON, with the ObjectMapper of the application, the way the controller writes
+ * the response body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DvdJsonBenchmark {
+    @Param({"10", "200"})
+    private int size;
+    private ObjectWriter writer;
+    private List<DvdDTO> dvds;
+
+    @Setup
+    public void setup() {
+        ObjectMapper objectMapper = new DeserializerConfig().objectMapper();
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, DvdDTO.class));
+        dvds = IntStream.range(0, size)
+                .mapToObj(i -> new DvdDTO(UUID.randomUUID(), "Lord of the Rings " + i, DvdGenre.ADVENTURE, i + 1))
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return writer.writeValueAsBytes(dvds);
+    }
+}
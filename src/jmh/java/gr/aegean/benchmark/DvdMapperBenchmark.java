@@ -0,0 +1,81 @@
+package gr.aegean.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+
+import gr.aegean.entity.Dvd;
+import gr.aegean.mapper.DvdDTOMapper;
+import gr.aegean.mapper.DvdRowMapper;
+import gr.aegean.model.dto.dvd.DvdDTO;
+import gr.aegean.model.dvd.DvdGenre;
+
+
+/**
+ * DvdRowMapper.mapRow reads a single row of an in-memory CachedRowSet, that looks up the columns by label like the
+ * PostgreSQL driver does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DvdMapperBenchmark {
+    private final DvdRowMapper rowMapper = new DvdRowMapper();
+    private final DvdDTOMapper dtoMapper = new DvdDTOMapper();
+    private CachedRowSet resultSet;
+    private Dvd dvd;
+
+    @Setup
+    public void setup() throws SQLException {
+        dvd = new Dvd(UUID.randomUUID(), "Lord of the Rings: The Fellowship of the Ring", DvdGenre.ADVENTURE, 5);
+
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(4);
+        String[] labels = {"id", "title", "genre", "quantity"};
+        for (int i = 0; i < labels.length; i++) {
+            metaData.setColumnName(i + 1, labels[i]);
+            metaData.setColumnLabel(i + 1, labels[i]);
+            metaData.setColumnType(i + 1, i == 3 ? Types.INTEGER : Types.VARCHAR);
+        }
+
+        resultSet = RowSetProvider.newFactory().createCachedRowSet();
+        resultSet.setMetaData(metaData);
+        resultSet.moveToInsertRow();
+        resultSet.updateString(1, dvd.getId().toString());
+        resultSet.updateString(2, dvd.getTitle());
+        resultSet.updateString(3, dvd.getGenre().name());
+        resultSet.updateInt(4, dvd.getQuantity());
+        resultSet.insertRow();
+        resultSet.moveToCurrentRow();
+        resultSet.beforeFirst();
+        resultSet.next();
+    }
+
+    @Benchmark
+    public Dvd mapRow() throws SQLException {
+        return rowMapper.mapRow(resultSet, 1);
+    }
+
+    @Benchmark
+    public DvdDTO convert() {
+        return dtoMapper.convert(dvd);
+    }
+}
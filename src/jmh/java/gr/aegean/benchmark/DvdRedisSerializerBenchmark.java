@@ -0,0 +1,61 @@
+package gr.aegean.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import gr.aegean.cache.DvdCacheFormat;
+import gr.aegean.cache.DvdRedisSerializer;
+import gr.aegean.entity.Dvd;
+import gr.aegean.model.dvd.DvdGenre;
+
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Serialization of a cached Dvd in every format of the DvdRedisSerializer. The size of the encoded Dvd is logged on
+ * setup, since it is the size of every value, or hash field, in Redis.
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DvdRedisSerializerBenchmark {
+    @Param({"JSON", "BINARY"})
+    private DvdCacheFormat format;
+    private DvdRedisSerializer serializer;
+    private Dvd dvd;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        serializer = new DvdRedisSerializer(format);
+        dvd = new Dvd(UUID.randomUUID(), "The Lord of the Rings: The Fellowship of the Ring", DvdGenre.ADVENTURE, 12, 3L);
+        bytes = serializer.serialize(dvd);
+        log.info("{} encodes the dvd in {} bytes", format, bytes.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(dvd);
+    }
+
+    @Benchmark
+    public Dvd deserialize() {
+        return serializer.deserialize(bytes);
+    }
+}
@@ -0,0 +1,107 @@
+package gr.aegean.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.Validation;
+
+import gr.aegean.cache.DvdCache;
+import gr.aegean.cache.DvdSearchCache;
+import gr.aegean.cache.DvdStock;
+import gr.aegean.cache.DvdTitleIndex;
+import gr.aegean.config.DvdCacheProperties;
+import gr.aegean.config.DvdStockProperties;
+import gr.aegean.entity.Dvd;
+import gr.aegean.model.dto.dvd.DvdDTO;
+import gr.aegean.model.dvd.DvdGenre;
+import gr.aegean.repository.DvdRepository;
+import gr.aegean.service.DvdService;
+
+
+/**
+ * DvdService.findDvdById on the hit path of the near cache, the hit path of the shared tier, and the miss path that
+ * goes through request coalescing to the repository. Redis and Postgres are replaced by in-memory stand-ins.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DvdServiceBenchmark {
+    @Param({"NEAR_HIT", "STORE_HIT", "MISS"})
+    private String path;
+    private DvdService dvdService;
+    private String dvdId;
+
+    @Setup
+    public void setup() {
+        Dvd dvd = new Dvd(
+                UUID.randomUUID(),
+                "Lord of the Rings: The Fellowship of the Ring",
+                DvdGenre.ADVENTURE,
+                5);
+        dvdId = dvd.getId().toString();
+
+        DvdCacheProperties cacheProperties = new DvdCacheProperties();
+        cacheProperties.getNear().setEnabled(path.equals("NEAR_HIT"));
+        /*
+            The missing markers are kept in Redis, which has no stand-in.
+         */
+        cacheProperties.getNegative().setEnabled(false);
+
+        DvdCache dvdCache = new DvdCache(
+                new InMemoryDvdCacheStore(!path.equals("MISS")),
+                new RedisTemplate<>(),
+                cacheProperties,
+                new SimpleMeterRegistry());
+
+        dvdService = new DvdService(
+                new StubDvdRepository(dvd),
+                dvdCache,
+                new DvdStock(new StringRedisTemplate(), new DvdStockProperties()),
+                new DvdSearchCache(new StringRedisTemplate(), new ObjectMapper(), cacheProperties),
+                new DvdTitleIndex(),
+                Validation.buildDefaultValidatorFactory().getValidator());
+
+        dvdService.findDvdById(dvdId);
+    }
+
+    @Benchmark
+    public DvdDTO findDvdById() {
+        return dvdService.findDvdById(dvdId);
+    }
+
+    private static class StubDvdRepository extends DvdRepository {
+        private final Dvd dvd;
+
+        StubDvdRepository(Dvd dvd) {
+            super(null);
+            this.dvd = dvd;
+        }
+
+        @Override
+        public Optional<Dvd> findDvdByID(String dvdID) {
+            return Optional.of(dvd);
+        }
+    }
+}
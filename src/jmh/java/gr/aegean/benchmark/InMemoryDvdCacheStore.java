@@ -0,0 +1,77 @@
+package gr.aegean.benchmark;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import gr.aegean.cache.CachedDvd;
+import gr.aegean.cache.DvdCacheStore;
+import gr.aegean.entity.Dvd;
+
+
+/**
+ * Stand-in for the Redis tier of the dvd cache, so that the benchmarks measure the code of the application and not
+ * the network. When retain is false every put is dropped, so that every lookup is a miss.
+ */
+class InMemoryDvdCacheStore implements DvdCacheStore {
+    private final Map<String, Dvd> dvds = new ConcurrentHashMap<>();
+    private final boolean retain;
+
+    InMemoryDvdCacheStore(boolean retain) {
+        this.retain = retain;
+    }
+
+    @Override
+    public Dvd get(String dvdId) {
+        return dvds.get(dvdId);
+    }
+
+    @Override
+    public CachedDvd getWithTtl(String dvdId) {
+        Dvd dvd = dvds.get(dvdId);
+
+        return dvd == null ? null : new CachedDvd(dvd, CachedDvd.NO_EXPIRY);
+    }
+
+    @Override
+    public List<Dvd> getAll(List<String> dvdIds) {
+        return dvdIds.stream()
+                .map(dvds::get)
+                .toList();
+    }
+
+    @Override
+    public void put(Dvd dvd) {
+        if (retain) {
+            dvds.put(dvd.getId().toString(), dvd);
+        }
+    }
+
+    @Override
+    public boolean putIfAbsent(Dvd dvd) {
+        return retain && dvds.putIfAbsent(dvd.getId().toString(), dvd) == null;
+    }
+
+    @Override
+    public boolean replace(Dvd expected, Dvd dvd) {
+        return retain && dvds.replace(dvd.getId().toString(), expected, dvd);
+    }
+
+    @Override
+    public void putAll(Collection<Dvd> dvds) {
+        dvds.forEach(this::put);
+    }
+
+    @Override
+    public void putAllIfAbsent(Collection<Dvd> dvds) {
+        if (retain) {
+            dvds.forEach(dvd -> this.dvds.putIfAbsent(dvd.getId().toString(), dvd));
+        }
+    }
+
+    @Override
+    public void delete(String dvdId) {
+        dvds.remove(dvdId);
+    }
+}
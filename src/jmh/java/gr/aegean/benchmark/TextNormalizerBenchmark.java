@@ -0,0 +1,79 @@
+package gr.aegean.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import gr.aegean.utility.TextNormalizer;
+
+
+/**
+ * TextNormalizer against the regular expressions it replaced. Run with -prof gc to compare the allocations as well.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextNormalizerBenchmark {
+
+    @Benchmark
+    public String sanitizeTitleRegex(Titles titles) {
+        String sanitized = titles.title.trim();
+        sanitized = sanitized.replaceAll("[^a-zA-Z0-9\\s+.':-]", "");
+
+        return sanitized.replaceAll("\\s+", " ");
+    }
+
+    @Benchmark
+    public String sanitizeTitle(Titles titles) {
+        return TextNormalizer.sanitizeTitle(titles.title);
+    }
+
+    @Benchmark
+    public String toEnumNameRegex(Genres genres) {
+        return genres.genre.trim().replaceAll("\\s+", "_").toUpperCase();
+    }
+
+    @Benchmark
+    public String toEnumName(Genres genres) {
+        return TextNormalizer.toEnumName(genres.genre);
+    }
+
+    @Benchmark
+    public boolean isAsciiLettersRegex(Names names) {
+        return names.name.matches("^[a-zA-Z]*$");
+    }
+
+    @Benchmark
+    public boolean isAsciiLetters(Names names) {
+        return TextNormalizer.isAsciiLetters(names.name);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Titles {
+        @Param({"Lord of the Rings: The Fellowship of the Ring", "  Lord  of the   Rings!!  (Extended)  "})
+        private String title;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Genres {
+        @Param({"ADVENTURE", " science  fiction "})
+        private String genre;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Names {
+        @Param({"Alexander", "Mary Ann"})
+        private String name;
+    }
+}
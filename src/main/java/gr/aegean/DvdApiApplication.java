@@ -2,8 +2,14 @@ package gr.aegean;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 
-@SpringBootApplication
+/*
+    The R2DBC pool of the reactive endpoints is configured by ReactiveConfig. The auto-configured one would replace the
+    DataSource and the JDBC transaction manager.
+ */
+@SpringBootApplication(exclude = {R2dbcAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
 public class DvdApiApplication {
     public static void main(String[] args) {
         SpringApplication.run(DvdApiApplication.class, args);
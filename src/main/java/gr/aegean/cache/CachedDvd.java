@@ -0,0 +1,15 @@
+package gr.aegean.cache;
+
+import gr.aegean.entity.Dvd;
+
+
+/**
+ * A cached Dvd and its remaining time to live in milliseconds, or NO_EXPIRY if the entry never expires.
+ */
+public record CachedDvd(Dvd dvd, long ttlMillis) {
+    public static final long NO_EXPIRY = -1;
+
+    public boolean expires() {
+        return ttlMillis >= 0;
+    }
+}
@@ -0,0 +1,779 @@
+package gr.aegean.cache;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import gr.aegean.config.DvdCacheProperties;
+import gr.aegean.entity.Dvd;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Two-tier cache for Dvds. Reads are served by a bounded in-process near cache (W-TinyLFU eviction) and fall back to
+ * the Redis store shared by all instances. Every write evicts the entry from the near cache of every instance by
+ * publishing the dvd id on the invalidation channel, and increments the version of the catalogue, which identifies
+ * the state of every list of Dvds. Within a transaction, both happen once it completes, and the Dvds it wrote to Redis
+ * are deleted again if it rolls back.
+ * Entries of Redis that expire are refreshed early (XFetch), so that a hot Dvd is reloaded in the background by one
+ * reader shortly before it expires, instead of by every reader right after.
+ * Ids that the loader did not find are cached as missing for a short ttl, so that lookups of unknown ids do not reach
+ * the database every time.
+ */
+@Slf4j
+@Component
+public class DvdCache implements MessageListener {
+    public static final String INVALIDATION_CHANNEL = "dvds:invalidation";
+    public static final String MISSING_KEY_PREFIX = "dvd:missing:";
+    public static final String CATALOGUE_VERSION_KEY = "dvds:catalogue:version";
+    public static final String EVICTED_KEY_PREFIX = "dvd:evicted:";
+    /*
+        Adds ARGV[2] to the catalogue version and returns it. A missing version, e.g. after a flush of Redis, starts
+        from the current time in ARGV[1], so that it does not repeat a version from before.
+     */
+    private static final byte[] CATALOGUE_VERSION_SCRIPT = """
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                redis.call('SET', KEYS[1], ARGV[1])
+            end
+            return redis.call('INCRBY', KEYS[1], ARGV[2])
+            """.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CATALOGUE_VERSION = CATALOGUE_VERSION_KEY.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] MISSING_VALUE = "1".getBytes(StandardCharsets.UTF_8);
+    private static final String INVALIDATION_SEPARATOR = ",";
+    private final DvdCacheStore cacheStore;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Cache<String, Dvd> nearCache;
+    private final boolean nearCacheEnabled;
+    private final Cache<String, Boolean> nearMissing;
+    private final boolean negativeCacheEnabled;
+    private final Duration negativeTtl;
+    private final boolean tombstonesEnabled;
+    private final Duration tombstoneTtl;
+    private final Counter nearHits;
+    private final Counter nearMisses;
+    private final Counter redisHits;
+    private final Counter redisMisses;
+    private final Counter negativeHits;
+    private final Counter negativeMisses;
+    private final Counter readErrors;
+    private final Counter writeErrors;
+    private final SingleFlight<String, Dvd> loads;
+    private final boolean refreshEnabled;
+    private final double refreshBeta;
+    private final long refreshHorizonMillis;
+    private final ThreadPoolExecutor refreshExecutor;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    /*
+        Incremented by every invalidation that this instance applies to its near cache, see putLoaded().
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Counter refreshes;
+    private final Counter failedRefreshes;
+    private final Counter droppedRefreshes;
+    private static final double LOAD_TIME_WEIGHT = 0.2;
+    /*
+        Exponentially weighted moving average of the time a load takes, the delta of XFetch.
+     */
+    private double loadMillis;
+
+    public DvdCache(DvdCacheStore cacheStore,
+                    RedisTemplate<String, Object> redisTemplate,
+                    DvdCacheProperties cacheProperties,
+                    MeterRegistry meterRegistry) {
+        DvdCacheProperties.Near near = cacheProperties.getNear();
+        DvdCacheProperties.Refresh refresh = cacheProperties.getRefresh();
+        DvdCacheProperties.Negative negative = cacheProperties.getNegative();
+
+        this.cacheStore = cacheStore;
+        this.redisTemplate = redisTemplate;
+        this.nearCacheEnabled = near.isEnabled();
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(near.getMaximumSize())
+                .expireAfterWrite(near.getTtl())
+                .build();
+        this.negativeCacheEnabled = negative.isEnabled();
+        this.negativeTtl = negative.getTtl();
+        this.tombstonesEnabled = cacheProperties.getWarmup().isEnabled();
+        this.tombstoneTtl = cacheProperties.getWarmup().getTimeout();
+        this.nearMissing = Caffeine.newBuilder()
+                .maximumSize(negative.getMaximumSize())
+                .expireAfterWrite(negative.getTtl())
+                .build();
+        this.nearHits = cacheCounter(meterRegistry, "near", "hit");
+        this.nearMisses = cacheCounter(meterRegistry, "near", "miss");
+        this.redisHits = cacheCounter(meterRegistry, "redis", "hit");
+        this.redisMisses = cacheCounter(meterRegistry, "redis", "miss");
+        this.negativeHits = cacheCounter(meterRegistry, "negative", "hit");
+        this.negativeMisses = cacheCounter(meterRegistry, "negative", "miss");
+        this.readErrors = errorCounter(meterRegistry, "read");
+        this.writeErrors = errorCounter(meterRegistry, "write");
+        this.loads = new SingleFlight<>(Counter.builder("dvd.cache.loads.coalesced")
+                .description("Cache misses that waited for the database load of another request")
+                .register(meterRegistry));
+        this.refreshEnabled = refresh.isEnabled();
+        this.refreshBeta = refresh.getBeta();
+        this.refreshHorizonMillis = near.isEnabled() ? near.getTtl().toMillis() : 0;
+        this.refreshExecutor = refresh.isEnabled() ? refreshExecutor(refresh) : null;
+        String layout = cacheProperties.getLayout().name().toLowerCase();
+        this.refreshes = refreshCounter(meterRegistry, layout, "success");
+        this.failedRefreshes = refreshCounter(meterRegistry, layout, "failure");
+        this.droppedRefreshes = refreshCounter(meterRegistry, layout, "dropped");
+    }
+
+    /**
+     * @return the cached Dvd, or the Dvd returned by the loader, which is then cached. Concurrent misses of the same
+     * id on this instance are coalesced, the loader runs once and every caller gets its result. A hit that is close
+     * to its expiry may also be reloaded in the background, the cached Dvd is returned without waiting for it.
+     * Null if the loader returned null, in which case the id is cached as missing, or if the id is cached as missing.
+     */
+    public Dvd get(String dvdId, Supplier<Dvd> loader) {
+        CachedDvd cached = lookup(dvdId);
+        if (cached != null) {
+            if (shouldRefresh(cached)) {
+                refresh(dvdId, cached.dvd(), loader);
+            }
+
+            return cached.dvd();
+        }
+
+        if (isMissing(dvdId)) {
+            return null;
+        }
+
+        return loads.execute(dvdId, () -> {
+            long invalidationsBefore = invalidations.get();
+            Dvd loaded = load(loader);
+            if (loaded == null) {
+                putMissing(dvdId);
+
+                return null;
+            }
+            putLoaded(loaded, null, invalidationsBefore);
+
+            return loaded;
+        });
+    }
+
+    /**
+     * @return the cached Dvd, or null if neither tier contains it.
+     */
+    public Dvd get(String dvdId) {
+        CachedDvd cached = lookup(dvdId);
+
+        return cached == null ? null : cached.dvd();
+    }
+
+    /**
+     * Same as get() for a batch of ids. The near cache is checked first, then Redis with a single round trip, and the
+     * ids that neither contains are loaded with a single call of the loader, and written to Redis with a single
+     * pipeline. The loaded Dvds do not overwrite the Dvds that a concurrent write cached in the meantime. Only the
+     * in-process tier of the negative cache is checked, so a batch takes one round trip to Redis on a hit. Batches are
+     * neither coalesced nor refreshed early, and their loads are not part of the load time of the refreshes. Like in
+     * get(), the loaded Dvds are not put in the near cache if an invalidation arrived during the load.
+     *
+     * @return the Dvds that were found, keyed by their id
+     */
+    public Map<String, Dvd> getAll(Collection<String> dvdIds, Function<Collection<String>, Collection<Dvd>> loader) {
+        Map<String, Dvd> found = new HashMap<>();
+        List<String> remaining = new ArrayList<>();
+        for (String dvdId : new LinkedHashSet<>(dvdIds)) {
+            Dvd dvd = nearCacheEnabled ? nearCache.getIfPresent(dvdId) : null;
+            if (dvd != null) {
+                nearHits.increment();
+                found.put(dvdId, dvd);
+
+                continue;
+            }
+            if (nearCacheEnabled) {
+                nearMisses.increment();
+            }
+            remaining.add(dvdId);
+        }
+        if (remaining.isEmpty()) {
+            return found;
+        }
+
+        long readInvalidations = invalidations.get();
+        List<Dvd> cached;
+        try {
+            cached = cacheStore.getAll(remaining);
+        } catch (RuntimeException re) {
+            readErrors.increment();
+            log.warn("Failed to read {} dvds from Redis, falling back to the database", remaining.size(), re);
+            cached = Collections.nCopies(remaining.size(), null);
+        }
+
+        List<String> misses = new ArrayList<>();
+        for (int i = 0; i < remaining.size(); i++) {
+            String dvdId = remaining.get(i);
+            Dvd dvd = cached.get(i);
+            if (dvd == null) {
+                redisMisses.increment();
+                if (!negativeCacheEnabled || nearMissing.getIfPresent(dvdId) == null) {
+                    misses.add(dvdId);
+                }
+
+                continue;
+            }
+            redisHits.increment();
+            found.put(dvdId, dvd);
+            if (nearCacheEnabled && invalidations.get() == readInvalidations) {
+                nearCache.put(dvdId, dvd);
+            }
+        }
+        if (misses.isEmpty()) {
+            return found;
+        }
+
+        long invalidationsBefore = invalidations.get();
+        Collection<Dvd> loaded = loader.apply(misses);
+        try {
+            cacheStore.putAllIfAbsent(loaded);
+        } catch (RuntimeException re) {
+            writeErrors.increment();
+            log.warn("Failed to cache {} dvds in Redis", loaded.size(), re);
+        }
+        boolean invalidated = invalidations.get() != invalidationsBefore;
+        for (Dvd dvd : loaded) {
+            String dvdId = dvd.getId().toString();
+            found.put(dvdId, dvd);
+            if (nearCacheEnabled && !invalidated) {
+                nearCache.put(dvdId, dvd);
+            }
+        }
+        putAllMissing(misses.stream()
+                .filter(dvdId -> !found.containsKey(dvdId))
+                .toList());
+
+        return found;
+    }
+
+    /*
+        A Dvd of the near cache is returned without its ttl, its Redis entry is only checked once the near entry
+        expires. A Dvd read from Redis is not put in the near cache if an invalidation arrived during the read, since
+        it may be the value before the invalidated write, see putLoaded().
+     */
+    private CachedDvd lookup(String dvdId) {
+        if (nearCacheEnabled) {
+            Dvd dvd = nearCache.getIfPresent(dvdId);
+            if (dvd != null) {
+                nearHits.increment();
+
+                return new CachedDvd(dvd, CachedDvd.NO_EXPIRY);
+            }
+            nearMisses.increment();
+        }
+
+        long readInvalidations = invalidations.get();
+        CachedDvd cached;
+        try {
+            cached = cacheStore.getWithTtl(dvdId);
+        } catch (RuntimeException re) {
+            readErrors.increment();
+            log.warn("Failed to read dvd {} from Redis, falling back to the database", dvdId, re);
+
+            return null;
+        }
+
+        if (cached == null) {
+            redisMisses.increment();
+
+            return null;
+        }
+        redisHits.increment();
+
+        if (nearCacheEnabled && invalidations.get() == readInvalidations) {
+            nearCache.put(dvdId, cached.dvd());
+        }
+
+        return cached;
+    }
+
+    /*
+        XFetch: refresh when ttl <= delta * beta * -ln(rand), where delta is the load time, so the closer the expiry
+        and the slower the load, the likelier the refresh. The near cache serves the Dvd for up to its own ttl after
+        the lookup, without checking Redis, so that much is subtracted from the ttl, otherwise a near-cached hot Dvd
+        would expire in Redis unnoticed.
+     */
+    private boolean shouldRefresh(CachedDvd cached) {
+        if (!refreshEnabled || !cached.expires()) {
+            return false;
+        }
+
+        double gap = loadMillis() * refreshBeta * -Math.log(1 - ThreadLocalRandom.current().nextDouble());
+
+        return cached.ttlMillis() - refreshHorizonMillis <= gap;
+    }
+
+    /*
+        At most one refresh per id is queued or running on this instance. It shares the load of a concurrent miss of
+        the same id through the single flight. When the queue is full, the refresh is dropped, and a later hit may
+        schedule it again. The loaded Dvd only replaces the cached one that scheduled the refresh, see putLoaded().
+     */
+    private void refresh(String dvdId, Dvd cached, Supplier<Dvd> loader) {
+        if (!refreshing.add(dvdId)) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    loads.execute(dvdId, () -> {
+                        long invalidationsBefore = invalidations.get();
+                        Dvd loaded = load(loader);
+                        if (loaded != null) {
+                            putLoaded(loaded, cached, invalidationsBefore);
+                        }
+
+                        return loaded;
+                    });
+                    refreshes.increment();
+                } catch (RuntimeException re) {
+                    failedRefreshes.increment();
+                    log.debug("Failed to refresh dvd {}", dvdId, re);
+                } finally {
+                    refreshing.remove(dvdId);
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            refreshing.remove(dvdId);
+            droppedRefreshes.increment();
+        }
+    }
+
+    /*
+        The in-process cache is checked first, then Redis. A Redis failure is counted and treated as not missing, the
+        database has the final word.
+     */
+    private boolean isMissing(String dvdId) {
+        if (!negativeCacheEnabled) {
+            return false;
+        }
+        if (nearMissing.getIfPresent(dvdId) != null) {
+            negativeHits.increment();
+
+            return true;
+        }
+
+        Boolean missing;
+        try {
+            byte[] key = missingKey(dvdId);
+            missing = redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                    connection.keyCommands().exists(key));
+        } catch (RuntimeException re) {
+            readErrors.increment();
+            log.warn("Failed to read the missing marker of dvd {} from Redis", dvdId, re);
+
+            return false;
+        }
+
+        if (Boolean.TRUE.equals(missing)) {
+            negativeHits.increment();
+            nearMissing.put(dvdId, Boolean.TRUE);
+
+            return true;
+        }
+        negativeMisses.increment();
+
+        return false;
+    }
+
+    /*
+        The ids are random UUIDs, so an id can not be looked up before the Dvd is created, and a marker never hides a
+        Dvd that exists, apart from one that was deleted and created again with the same id. The ttl bounds that case.
+     */
+    private void putMissing(String dvdId) {
+        if (!negativeCacheEnabled) {
+            return;
+        }
+
+        nearMissing.put(dvdId, Boolean.TRUE);
+        try {
+            byte[] key = missingKey(dvdId);
+            redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.stringCommands().set(
+                    key,
+                    MISSING_VALUE,
+                    Expiration.from(negativeTtl),
+                    SetOption.upsert()));
+        } catch (RuntimeException re) {
+            writeErrors.increment();
+            log.warn("Failed to cache dvd {} as missing in Redis", dvdId, re);
+        }
+    }
+
+    /*
+        Same as putMissing(), with a single pipeline.
+     */
+    private void putAllMissing(List<String> dvdIds) {
+        if (!negativeCacheEnabled || dvdIds.isEmpty()) {
+            return;
+        }
+
+        dvdIds.forEach(dvdId -> nearMissing.put(dvdId, Boolean.TRUE));
+        try {
+            Expiration expiration = Expiration.from(negativeTtl);
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String dvdId : dvdIds) {
+                    connection.stringCommands().set(missingKey(dvdId), MISSING_VALUE, expiration, SetOption.upsert());
+                }
+
+                return null;
+            });
+        } catch (RuntimeException re) {
+            writeErrors.increment();
+            log.warn("Failed to cache {} dvds as missing in Redis", dvdIds.size(), re);
+        }
+    }
+
+    private Dvd load(Supplier<Dvd> loader) {
+        long start = System.nanoTime();
+        try {
+            return loader.get();
+        } finally {
+            recordLoadTime((System.nanoTime() - start) / 1_000_000.0);
+        }
+    }
+
+    private synchronized void recordLoadTime(double millis) {
+        loadMillis = loadMillis == 0 ? millis : loadMillis + LOAD_TIME_WEIGHT * (millis - loadMillis);
+    }
+
+    private synchronized double loadMillis() {
+        return loadMillis;
+    }
+
+    /*
+        Caches the Dvd in both tiers unconditionally, unlike putLoaded(). A failure to write to Redis is counted and
+        ignored.
+     */
+    void put(Dvd dvd) {
+        String dvdId = dvd.getId().toString();
+
+        try {
+            cacheStore.put(dvd);
+        } catch (RuntimeException re) {
+            writeErrors.increment();
+            log.warn("Failed to cache dvd {} in Redis", dvdId, re);
+        }
+        if (nearCacheEnabled) {
+            nearCache.put(dvdId, dvd);
+        }
+    }
+
+    /*
+        Caches a Dvd returned by the loader. The loader may have read the row before a write that committed during the
+        load, and update() has then already cached the newer row. So a miss only fills an absent entry, and a refresh
+        only replaces the cached Dvd that scheduled it, which is compared with its version in Redis. When Redis kept
+        another Dvd, the loaded one is not put in the near cache either.
+        The Dvd is only put in the near cache if no invalidation arrived since the load started, otherwise the near
+        cache could serve the Dvd read before the write until its ttl. Any invalidation counts, not only the ones of
+        the Dvd, which only costs a read of Redis on the next lookup.
+     */
+    private void putLoaded(Dvd dvd, Dvd cached, long invalidationsBefore) {
+        String dvdId = dvd.getId().toString();
+        boolean written = true;
+
+        try {
+            written = cached == null ? cacheStore.putIfAbsent(dvd) : cacheStore.replace(cached, dvd);
+        } catch (RuntimeException re) {
+            writeErrors.increment();
+            log.warn("Failed to cache dvd {} in Redis", dvdId, re);
+        }
+        if (written && nearCacheEnabled && invalidations.get() == invalidationsBefore) {
+            nearCache.put(dvdId, dvd);
+        }
+    }
+
+    /**
+     * Caches a Dvd that was created or updated in the database. The near caches are not populated, the next read of
+     * every instance will load the new value from Redis.
+     */
+    public void update(Dvd dvd) {
+        String dvdId = dvd.getId().toString();
+
+        write(() -> cacheStore.put(dvd));
+        invalidate(dvdId);
+    }
+
+    /**
+     * Same as update() for a batch of Dvds. The Dvds are written with a single round trip to Redis and the near caches
+     * are invalidated with a single message.
+     */
+    public void updateAll(Collection<Dvd> dvds) {
+        if (dvds.isEmpty()) {
+            return;
+        }
+
+        write(() -> cacheStore.putAll(dvds));
+        invalidate(dvds.stream()
+                .map(dvd -> dvd.getId().toString())
+                .collect(Collectors.joining(INVALIDATION_SEPARATOR)));
+    }
+
+    /**
+     * Deletes a Dvd from both tiers. While the warm-up is enabled, the eviction also leaves a tombstone for the timeout
+     * of the warm-up, since the warm-up may have read the Dvd before it was deleted, and write it after.
+     */
+    public void evict(String dvdId) {
+        write(() -> {
+            if (tombstonesEnabled) {
+                putTombstone(dvdId);
+            }
+            cacheStore.delete(dvdId);
+        });
+        invalidate(dvdId);
+    }
+
+    /**
+     * Checks the tombstones of the Dvds with a single pipeline.
+     *
+     * @return the ids of the Dvds that were evicted within the ttl of the tombstones.
+     */
+    public List<String> evicted(List<String> dvdIds) {
+        if (!tombstonesEnabled || dvdIds.isEmpty()) {
+            return List.of();
+        }
+
+        List<Object> exists = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String dvdId : dvdIds) {
+                connection.keyCommands().exists(evictedKey(dvdId));
+            }
+
+            return null;
+        });
+
+        List<String> evicted = new ArrayList<>();
+        for (int i = 0; i < dvdIds.size(); i++) {
+            if (Boolean.TRUE.equals(exists.get(i))) {
+                evicted.add(dvdIds.get(i));
+            }
+        }
+
+        return evicted;
+    }
+
+    private void putTombstone(String dvdId) {
+        byte[] key = evictedKey(dvdId);
+        redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.stringCommands().set(
+                key,
+                MISSING_VALUE,
+                Expiration.from(tombstoneTtl),
+                SetOption.upsert()));
+    }
+
+    /*
+        Called for the messages of the invalidation channel, including the ones published by this instance. A message
+        contains one or more ids, separated by commas.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        invalidations.incrementAndGet();
+        for (String dvdId : body.split(INVALIDATION_SEPARATOR)) {
+            nearCache.invalidate(dvdId);
+            nearMissing.invalidate(dvdId);
+        }
+    }
+
+    /*
+        The cached responses of the Dvds are deleted even when the response cache is disabled, so that it does not
+        serve the responses cached before it was last disabled, once it is enabled again. They are deleted before the
+        version is incremented, which makes the response cache reject the responses of the loads that raced with this
+        write.
+        Within a transaction, the responses are deleted, the version is incremented and the message is published once
+        the transaction completes. Until then the other transactions still read the previous rows, so a list or a
+        response read in the meantime would be cached under the new version, and served as not modified after the
+        commit. When the transaction does not commit, the Dvds that were written to Redis within it are deleted first,
+        since they are rows that never committed, and the same invalidation then purges whatever was read from them.
+     */
+    private void invalidate(String dvdIds) {
+        String[] ids = dvdIds.split(INVALIDATION_SEPARATOR);
+        byte[][] responseKeys = new byte[ids.length][];
+        invalidations.incrementAndGet();
+        for (int i = 0; i < ids.length; i++) {
+            nearCache.invalidate(ids[i]);
+            nearMissing.invalidate(ids[i]);
+            responseKeys[i] = DvdResponseCache.key(ids[i]);
+        }
+
+        byte[] channel = INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8);
+        byte[] body = dvdIds.getBytes(StandardCharsets.UTF_8);
+        Runnable invalidation = () -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.keyCommands().del(responseKeys);
+            catalogueVersion(connection, 1);
+            connection.publish(channel, body);
+
+            return null;
+        });
+        afterCompletion(invalidation, () -> {
+            for (String dvdId : ids) {
+                cacheStore.delete(dvdId);
+            }
+            invalidation.run();
+        });
+    }
+
+    /*
+        Runs the commit action right away when there is no transaction. After the completion, a failure can no longer
+        change the outcome of the transaction, so it is counted and logged instead of thrown to the caller. A status
+        that is unknown is treated as a rollback, deleting a Dvd that did commit only costs a load.
+     */
+    private void afterCompletion(Runnable commitAction, Runnable rollbackAction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            commitAction.run();
+
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        commitAction.run();
+                    } else {
+                        rollbackAction.run();
+                    }
+                } catch (RuntimeException re) {
+                    writeErrors.increment();
+                    log.warn("Failed to invalidate the dvd cache after the transaction completed", re);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the version of the catalogue, which is incremented by every write, or null if Redis is unavailable.
+     */
+    public Long catalogueVersion() {
+        try {
+            return redisTemplate.execute((RedisCallback<Long>) connection -> catalogueVersion(connection, 0));
+        } catch (RuntimeException re) {
+            readErrors.increment();
+            log.warn("Failed to read the catalogue version from Redis", re);
+
+            return null;
+        }
+    }
+
+    private static Long catalogueVersion(RedisConnection connection, long increment) {
+        return connection.scriptingCommands().eval(
+                CATALOGUE_VERSION_SCRIPT,
+                ReturnType.INTEGER,
+                1,
+                CATALOGUE_VERSION,
+                String.valueOf(System.currentTimeMillis()).getBytes(StandardCharsets.UTF_8),
+                String.valueOf(increment).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /*
+        A failed write is counted and rethrown, unlike a failed read. Ignoring it would leave the previous value of the
+        Dvd in Redis, and the hash layout never expires it.
+     */
+    private void write(Runnable write) {
+        try {
+            write.run();
+        } catch (RuntimeException re) {
+            writeErrors.increment();
+
+            throw re;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
+    private static byte[] missingKey(String dvdId) {
+        return (MISSING_KEY_PREFIX + dvdId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] evictedKey(String dvdId) {
+        return (EVICTED_KEY_PREFIX + dvdId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ThreadPoolExecutor refreshExecutor(DvdCacheProperties.Refresh refresh) {
+        return new ThreadPoolExecutor(
+                refresh.getThreads(),
+                refresh.getThreads(),
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(refresh.getQueueSize()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "dvd-cache-refresh");
+                    thread.setDaemon(true);
+
+                    return thread;
+                });
+    }
+
+    /*
+        Only the entries of the KEY layout expire, so the layout tells whether the refreshes can happen at all.
+     */
+    private static Counter refreshCounter(MeterRegistry meterRegistry, String layout, String result) {
+        return Counter.builder("dvd.cache.refreshes")
+                .description("Early refreshes of the dvd cache")
+                .tag("cache", "dvds")
+                .tag("layout", layout)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter errorCounter(MeterRegistry meterRegistry, String operation) {
+        return Counter.builder("dvd.cache.errors")
+                .description("Failed calls to the Redis tier of the dvd cache")
+                .tag("cache", "dvds")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("dvd.cache.gets")
+                .description("Lookups of the dvd cache per tier")
+                .tag("cache", "dvds")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,13 @@
+package gr.aegean.cache;
+
+
+public enum DvdCacheFormat {
+    /*
+        Jackson JSON, with the field names and the id as a 36 character string.
+     */
+    JSON,
+    /*
+        The compact binary format of DvdRedisSerializer.
+     */
+    BINARY
+}
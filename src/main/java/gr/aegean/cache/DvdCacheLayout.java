@@ -0,0 +1,14 @@
+package gr.aegean.cache;
+
+
+public enum DvdCacheLayout {
+    /*
+        All the Dvds are fields of the single "dvds" hash. Entries never expire.
+     */
+    HASH,
+    /*
+        Every Dvd is stored under its own "dvd:{id}" key with a ttl, so entries expire individually and spread
+        across the slots of a cluster.
+     */
+    KEY
+}
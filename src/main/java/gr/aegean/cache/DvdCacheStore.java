@@ -0,0 +1,60 @@
+package gr.aegean.cache;
+
+import gr.aegean.entity.Dvd;
+
+import java.util.Collection;
+import java.util.List;
+
+
+/**
+ * The shared (Redis) tier of the dvd cache. Implementations differ in how the Dvds are laid out in Redis.
+ */
+public interface DvdCacheStore {
+
+    /**
+     * @return the cached Dvd, or null if it is not cached.
+     */
+    Dvd get(String dvdId);
+
+    /**
+     * @return the cached Dvd with its remaining time to live, or null if it is not cached.
+     */
+    CachedDvd getWithTtl(String dvdId);
+
+    /**
+     * Reads all the Dvds with a single round trip to Redis.
+     *
+     * @return the cached Dvds, in the order of the ids, with null for every Dvd that is not cached.
+     */
+    List<Dvd> getAll(List<String> dvdIds);
+
+    void put(Dvd dvd);
+
+    /**
+     * Same as put(), but the Dvd is not overwritten if it is already cached.
+     *
+     * @return true if the Dvd was written.
+     */
+    boolean putIfAbsent(Dvd dvd);
+
+    /**
+     * Atomically overwrites the cached Dvd, only if it is still the expected one. The serialized Dvds are compared,
+     * and they carry the version of the row, so a Dvd written since the expected one was read is never overwritten.
+     * A Dvd that is no longer cached is not written either.
+     *
+     * @return true if the Dvd was written.
+     */
+    boolean replace(Dvd expected, Dvd dvd);
+
+    /**
+     * Writes all the Dvds with a single round trip to Redis.
+     */
+    void putAll(Collection<Dvd> dvds);
+
+    /**
+     * Same as putAll(), but the Dvds that are already cached are not overwritten.
+     */
+    void putAllIfAbsent(Collection<Dvd> dvds);
+
+    void delete(String dvdId);
+}
@@ -0,0 +1,181 @@
+package gr.aegean.cache;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gr.aegean.config.DvdCacheProperties;
+import gr.aegean.entity.Dvd;
+import gr.aegean.repository.DvdRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Loads the catalogue into the Redis tier of the dvd cache on startup, so that the first requests after a deploy or a
+ * Redis restart are not all served by the database. Application runners are called before the application reports
+ * ready, so the readiness state stays REFUSING_TRAFFIC until the warm-up completes or the timeout passes. After a
+ * timeout the warm-up continues in the background.
+ * The Dvds are streamed from the database and written in chunks, one pipeline per chunk and up to parallelism chunks
+ * at a time. The stream waits while that many chunks are being written, so the Dvds held in memory are bounded. Cached
+ * Dvds are not overwritten, since another instance may have updated them after they were read, and the Dvds that
+ * were deleted after they were read are removed again, see evicted().
+ */
+@Slf4j
+@Component
+public class DvdCacheWarmer implements ApplicationRunner {
+    private final DvdRepository dvdRepository;
+    private final DvdCacheStore cacheStore;
+    private final DvdCache dvdCache;
+    private final TransactionTemplate transactionTemplate;
+    private final DvdCacheProperties.Warmup warmup;
+    private final AtomicLong loaded = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final Counter errors;
+    private final Timer duration;
+
+    public DvdCacheWarmer(DvdRepository dvdRepository,
+                          DvdCacheStore cacheStore,
+                          DvdCache dvdCache,
+                          PlatformTransactionManager transactionManager,
+                          DvdCacheProperties cacheProperties,
+                          MeterRegistry meterRegistry) {
+        this.dvdRepository = dvdRepository;
+        this.cacheStore = cacheStore;
+        this.dvdCache = dvdCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.warmup = cacheProperties.getWarmup();
+
+        Gauge.builder("dvd.cache.warmup.loaded", loaded, AtomicLong::get)
+                .description("Dvds written to Redis by the startup warm-up")
+                .register(meterRegistry);
+        Gauge.builder("dvd.cache.warmup.total", total, AtomicLong::get)
+                .description("Dvds in the database when the startup warm-up started")
+                .register(meterRegistry);
+        this.errors = Counter.builder("dvd.cache.warmup.errors")
+                .description("Chunks of the startup warm-up that failed to be written to Redis")
+                .register(meterRegistry);
+        this.duration = Timer.builder("dvd.cache.warmup.duration")
+                .description("Time taken by the startup warm-up")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!warmup.isEnabled()) {
+            return;
+        }
+
+        CompletableFuture<Void> warmUp = CompletableFuture.runAsync(this::warmUp,
+                runnable -> daemonThreadFactory("dvd-cache-warmup").newThread(runnable).start());
+        try {
+            warmUp.get(warmup.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException te) {
+            log.warn("The warm-up of the dvd cache did not complete within {}, {} of {} dvds were loaded, " +
+                    "continuing in the background", warmup.getTimeout(), loaded.get(), total.get());
+        } catch (ExecutionException ee) {
+            log.warn("The warm-up of the dvd cache failed", ee.getCause());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Streams the whole catalogue to Redis and returns once every chunk has been written.
+     */
+    public void warmUp() {
+        long start = System.nanoTime();
+        int parallelism = warmup.getParallelism();
+        int chunkSize = warmup.getChunkSize();
+        ExecutorService writers = Executors.newFixedThreadPool(
+                parallelism,
+                daemonThreadFactory("dvd-cache-warmup-writer"));
+        Semaphore inFlight = new Semaphore(parallelism);
+        List<Dvd> chunk = new ArrayList<>(chunkSize);
+
+        loaded.set(0);
+        total.set(dvdRepository.countDvds());
+        try {
+            transactionTemplate.executeWithoutResult(status -> dvdRepository.streamDvds(dvd -> {
+                chunk.add(dvd);
+                if (chunk.size() == chunkSize) {
+                    write(writers, inFlight, List.copyOf(chunk));
+                    chunk.clear();
+                }
+            }));
+            if (!chunk.isEmpty()) {
+                write(writers, inFlight, List.copyOf(chunk));
+            }
+            inFlight.acquireUninterruptibly(parallelism);
+        } finally {
+            writers.shutdown();
+        }
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        duration.record(elapsed);
+        log.info("Loaded {} of {} dvds into the dvd cache in {} ms", loaded.get(), total.get(), elapsed.toMillis());
+    }
+
+    /*
+        A failed chunk is counted and skipped, its Dvds will be cached on their first read.
+     */
+    private void write(ExecutorService writers, Semaphore inFlight, List<Dvd> chunk) {
+        inFlight.acquireUninterruptibly();
+        writers.execute(() -> {
+            try {
+                cacheStore.putAllIfAbsent(chunk);
+                int evicted = removeEvicted(chunk);
+                loaded.addAndGet(chunk.size() - evicted);
+            } catch (RuntimeException re) {
+                errors.increment();
+                log.warn("Failed to load {} dvds into the dvd cache", chunk.size(), re);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    /*
+        A Dvd that was deleted after the chunk was read, is written back by putAllIfAbsent() if its eviction came first.
+        Evictions leave a tombstone, which is checked after the write, so a Dvd that was evicted before the check is
+        deleted here, and one that is evicted after the check is deleted by its eviction.
+     */
+    private int removeEvicted(List<Dvd> chunk) {
+        List<String> evicted = dvdCache.evicted(chunk.stream()
+                .map(dvd -> dvd.getId().toString())
+                .toList());
+        evicted.forEach(cacheStore::delete);
+
+        return evicted.size();
+    }
+
+    private static ThreadFactory daemonThreadFactory(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+
+            return thread;
+        };
+    }
+}
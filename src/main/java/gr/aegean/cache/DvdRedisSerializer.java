@@ -0,0 +1,125 @@
+package gr.aegean.cache;
+
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import gr.aegean.entity.Dvd;
+import gr.aegean.model.dvd.DvdGenre;
+
+
+/**
+ * Serializes the cached Dvds in the configured format, and deserializes both formats, so the format can be switched
+ * one instance at a time, and back, while the cache holds values of either.
+ * The binary format is a format version byte, followed by the id as 16 bytes, the ordinal of the genre as a byte, the
+ * quantity and the row version as varints, and the title as a varint length and its UTF-8 bytes. A JSON value starts
+ * with '{', which is never a format version. Genres can only be appended to DvdGenre, since the ordinal is stored.
+ */
+public class DvdRedisSerializer implements RedisSerializer<Dvd> {
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte JSON_START = '{';
+    private static final DvdGenre[] GENRES = DvdGenre.values();
+    private final Jackson2JsonRedisSerializer<Dvd> jsonSerializer = new Jackson2JsonRedisSerializer<>(Dvd.class);
+    private final DvdCacheFormat format;
+
+    public DvdRedisSerializer(DvdCacheFormat format) {
+        this.format = format;
+    }
+
+    @Override
+    public byte[] serialize(Dvd dvd) throws SerializationException {
+        if (dvd == null) {
+            return null;
+        }
+
+        return switch (format) {
+            case JSON -> jsonSerializer.serialize(dvd);
+            case BINARY -> serializeBinary(dvd);
+        };
+    }
+
+    @Override
+    public Dvd deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+
+        return switch (bytes[0]) {
+            case JSON_START -> jsonSerializer.deserialize(bytes);
+            case FORMAT_VERSION -> deserializeBinary(bytes);
+            default -> throw new SerializationException("Unknown format of cached dvd: " + bytes[0]);
+        };
+    }
+
+    /*
+        A null version is written as 0 and every other version shifted by one, versions are never negative.
+     */
+    private static byte[] serializeBinary(Dvd dvd) {
+        byte[] title = dvd.getTitle().getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 + title.length);
+
+        out.write(FORMAT_VERSION);
+        out.writeBytes(ByteBuffer.allocate(16)
+                .putLong(dvd.getId().getMostSignificantBits())
+                .putLong(dvd.getId().getLeastSignificantBits())
+                .array());
+        out.write(dvd.getGenre().ordinal());
+        writeVarint(out, dvd.getQuantity());
+        writeVarint(out, dvd.getVersion() == null ? 0 : dvd.getVersion() + 1);
+        writeVarint(out, title.length);
+        out.writeBytes(title);
+
+        return out.toByteArray();
+    }
+
+    private static Dvd deserializeBinary(byte[] bytes) {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+            UUID id = new UUID(in.getLong(), in.getLong());
+            DvdGenre genre = GENRES[in.get()];
+            int quantity = (int) readVarint(in);
+            long version = readVarint(in);
+            byte[] title = new byte[(int) readVarint(in)];
+            in.get(title);
+
+            return new Dvd(
+                    id,
+                    new String(title, StandardCharsets.UTF_8),
+                    genre,
+                    quantity,
+                    version == 0 ? null : version - 1);
+        } catch (RuntimeException re) {
+            throw new SerializationException("Malformed cached dvd", re);
+        }
+    }
+
+    /*
+        Unsigned LEB128, 7 bits per byte, the high bit set on every byte but the last. Quantities below 128 take a
+        single byte.
+     */
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new SerializationException("Malformed varint");
+    }
+}
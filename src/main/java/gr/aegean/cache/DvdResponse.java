@@ -0,0 +1,8 @@
+package gr.aegean.cache;
+
+
+/**
+ * The JSON body of the response of a Dvd, ready to be written to the client, and its ETag.
+ */
+public record DvdResponse(byte[] body, String eTag) {
+}
@@ -0,0 +1,232 @@
+package gr.aegean.cache;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import gr.aegean.config.DvdCacheProperties;
+import gr.aegean.config.DvdStockProperties;
+import gr.aegean.model.dto.dvd.DvdDTO;
+
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Caches the serialized responses of single Dvds, so a hit is written to the client as is, without deserializing,
+ * mapping and serializing the Dvd again. The responses are kept in Redis and in an in-process tier, which follows the
+ * near cache settings. Every write of the DvdCache deletes the Redis entries of the Dvds it writes, and its
+ * invalidation messages evict them from the in-process tier of every instance.
+ * A response is only cached in Redis if the catalogue version has not changed since before the Dvd was loaded, so a
+ * load that raced with a write does not cache the previous response. The ETag of a response is a hash of its body.
+ * Disabled by default, and when the stock is written behind, since the stock of the cached response would lag.
+ */
+@Slf4j
+@Component
+public class DvdResponseCache implements MessageListener {
+    public static final String KEY_PREFIX = "dvd:response:";
+    /*
+        KEYS: the catalogue version, the response. ARGV: the version read before the load, the body, the ttl in
+        milliseconds. Returns 1 if the response was cached.
+     */
+    private static final byte[] PUT_SCRIPT = """
+            if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+                return 0
+            end
+            redis.call('SET', KEYS[2], ARGV[2], 'PX', ARGV[3])
+            return 1
+            """.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CATALOGUE_VERSION = DvdCache.CATALOGUE_VERSION_KEY.getBytes(StandardCharsets.UTF_8);
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final DvdCache dvdCache;
+    private final ObjectWriter writer;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final Cache<String, DvdResponse> nearCache;
+    private final boolean nearCacheEnabled;
+    /*
+        Incremented by every invalidation message, a response that was read or loaded while one arrived is not put in
+        the in-process tier, since it may be the response before the invalidated write.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Counter nearHits;
+    private final Counter nearMisses;
+    private final Counter redisHits;
+    private final Counter redisMisses;
+    private final Counter readErrors;
+    private final Counter writeErrors;
+
+    public DvdResponseCache(RedisTemplate<String, Object> redisTemplate,
+                            DvdCache dvdCache,
+                            ObjectMapper objectMapper,
+                            DvdCacheProperties cacheProperties,
+                            DvdStockProperties stockProperties,
+                            MeterRegistry meterRegistry) {
+        DvdCacheProperties.Near near = cacheProperties.getNear();
+        DvdCacheProperties.Response response = cacheProperties.getResponse();
+
+        this.redisTemplate = redisTemplate;
+        this.dvdCache = dvdCache;
+        this.writer = objectMapper.writerFor(DvdDTO.class);
+        this.enabled = response.isEnabled() && !stockProperties.getWriteBehind().isEnabled();
+        if (response.isEnabled() && !enabled) {
+            log.warn("The response cache is disabled, because the stock is written behind");
+        }
+        this.ttl = response.getTtl();
+        this.nearCacheEnabled = near.isEnabled();
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(response.getMaximumSize())
+                .expireAfterWrite(near.getTtl())
+                .build();
+        this.nearHits = cacheCounter(meterRegistry, "near", "hit");
+        this.nearMisses = cacheCounter(meterRegistry, "near", "miss");
+        this.redisHits = cacheCounter(meterRegistry, "redis", "hit");
+        this.redisMisses = cacheCounter(meterRegistry, "redis", "miss");
+        this.readErrors = errorCounter(meterRegistry, "read");
+        this.writeErrors = errorCounter(meterRegistry, "write");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the cached response of the Dvd, or the response of the Dvd returned by the loader, which is then cached.
+     * The exceptions of the loader, e.g. for a Dvd that was not found, are thrown as is.
+     */
+    public DvdResponse get(String dvdId, Supplier<DvdDTO> loader) {
+        if (nearCacheEnabled) {
+            DvdResponse response = nearCache.getIfPresent(dvdId);
+            if (response != null) {
+                nearHits.increment();
+
+                return response;
+            }
+            nearMisses.increment();
+        }
+
+        long readInvalidations = invalidations.get();
+        byte[] body = read(dvdId);
+        if (body != null) {
+            redisHits.increment();
+            DvdResponse response = new DvdResponse(body, eTag(body));
+            if (nearCacheEnabled && invalidations.get() == readInvalidations) {
+                nearCache.put(dvdId, response);
+            }
+
+            return response;
+        }
+        redisMisses.increment();
+
+        Long version = dvdCache.catalogueVersion();
+        DvdResponse response = serialize(loader.get());
+        if (version != null
+                && put(dvdId, response.body(), version)
+                && nearCacheEnabled
+                && invalidations.get() == readInvalidations) {
+            nearCache.put(dvdId, response);
+        }
+
+        return response;
+    }
+
+    /*
+        Called for the messages of the invalidation channel of the DvdCache, a message contains one or more ids,
+        separated by commas.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        invalidations.incrementAndGet();
+        for (String dvdId : body.split(",")) {
+            nearCache.invalidate(dvdId);
+        }
+    }
+
+    public static byte[] key(String dvdId) {
+        return (KEY_PREFIX + dvdId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] read(String dvdId) {
+        byte[] key = key(dvdId);
+        try {
+            return redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(key));
+        } catch (RuntimeException re) {
+            readErrors.increment();
+            log.warn("Failed to read the response of dvd {} from Redis", dvdId, re);
+
+            return null;
+        }
+    }
+
+    private boolean put(String dvdId, byte[] body, long version) {
+        byte[] key = key(dvdId);
+        try {
+            Long stored = redisTemplate.execute((RedisCallback<Long>) connection ->
+                    connection.scriptingCommands().eval(
+                            PUT_SCRIPT,
+                            ReturnType.INTEGER,
+                            2,
+                            CATALOGUE_VERSION,
+                            key,
+                            String.valueOf(version).getBytes(StandardCharsets.UTF_8),
+                            body,
+                            String.valueOf(ttl.toMillis()).getBytes(StandardCharsets.UTF_8)));
+
+            return Long.valueOf(1).equals(stored);
+        } catch (RuntimeException re) {
+            writeErrors.increment();
+            log.warn("Failed to cache the response of dvd {} in Redis", dvdId, re);
+
+            return false;
+        }
+    }
+
+    private DvdResponse serialize(DvdDTO dvdDTO) {
+        try {
+            byte[] body = writer.writeValueAsBytes(dvdDTO);
+
+            return new DvdResponse(body, eTag(body));
+        } catch (JsonProcessingException jpe) {
+            throw new IllegalStateException("Failed to serialize dvd with id: " + dvdDTO.id(), jpe);
+        }
+    }
+
+    private static String eTag(byte[] body) {
+        return '"' + DigestUtils.md5DigestAsHex(body) + '"';
+    }
+
+    private static Counter errorCounter(MeterRegistry meterRegistry, String operation) {
+        return Counter.builder("dvd.cache.errors")
+                .description("Failed calls to the Redis tier of the dvd cache")
+                .tag("cache", "responses")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("dvd.cache.gets")
+                .description("Lookups of the dvd cache per tier")
+                .tag("cache", "responses")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
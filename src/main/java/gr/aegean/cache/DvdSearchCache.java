@@ -0,0 +1,76 @@
+package gr.aegean.cache;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import gr.aegean.config.DvdCacheProperties;
+import gr.aegean.model.dto.dvd.DvdDTO;
+
+
+/**
+ * Caches the results of title searches in Redis, keyed on the version of the catalogue and the normalized search. The
+ * results are not evicted on writes, but a write changes the version of the catalogue, and the results cached under
+ * the previous version are no longer read. They expire after the ttl. Disabled by default.
+ */
+@Component
+public class DvdSearchCache {
+    private static final String KEY_PREFIX = "dvd:search:";
+    private static final TypeReference<List<DvdDTO>> RESULTS_TYPE = new TypeReference<>() {
+    };
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Duration ttl;
+
+    public DvdSearchCache(StringRedisTemplate stringRedisTemplate,
+                          ObjectMapper objectMapper,
+                          DvdCacheProperties cacheProperties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = cacheProperties.getSearch().isEnabled();
+        this.ttl = cacheProperties.getSearch().getTtl();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the cached results of the search, or null if they are not cached.
+     */
+    public List<DvdDTO> get(String key) {
+        if (!enabled) {
+            return null;
+        }
+
+        String results = stringRedisTemplate.opsForValue().get(KEY_PREFIX + key);
+        if (results == null) {
+            return null;
+        }
+
+        try {
+            return objectMapper.readValue(results, RESULTS_TYPE);
+        } catch (JsonProcessingException jpe) {
+            return null;
+        }
+    }
+
+    public void put(String key, List<DvdDTO> dvds) {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            stringRedisTemplate.opsForValue().set(KEY_PREFIX + key, objectMapper.writeValueAsString(dvds), ttl);
+        } catch (JsonProcessingException jpe) {
+            throw new IllegalStateException("Failed to serialize the search results", jpe);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package gr.aegean.cache;
+
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import gr.aegean.config.DvdStockProperties;
+
+
+/**
+ * The stock of the Dvds, when it is written behind. The stock of every Dvd is a field of a hash, loaded from the
+ * database on its first change, and every change is appended to a journal (a Redis stream) by the same script, so a
+ * change is either both applied and journaled, or neither. The journal entries carry the resulting stock, so the
+ * flusher only has to write the last entry of every Dvd. Disabled by default.
+ */
+@Component
+public class DvdStock {
+    public static final String STOCK_KEY = "dvd:stock";
+    public static final String JOURNAL_KEY = "dvd:stock:journal";
+    /**
+     * Returned by add() when the change would make the stock negative.
+     */
+    public static final long INSUFFICIENT = -1;
+    /*
+        KEYS: the stock hash, the journal. ARGV: the dvd id, the change. Nil if the stock of the Dvd is not loaded.
+     */
+    private static final RedisScript<Long> ADD_SCRIPT = RedisScript.of("""
+            local stock = redis.call('HGET', KEYS[1], ARGV[1])
+            if not stock then
+                return nil
+            end
+            if tonumber(stock) + tonumber(ARGV[2]) < 0 then
+                return -1
+            end
+            stock = redis.call('HINCRBY', KEYS[1], ARGV[1], ARGV[2])
+            redis.call('XADD', KEYS[2], '*', 'id', ARGV[1], 'delta', ARGV[2], 'stock', stock)
+            return stock
+            """, Long.class);
+    /*
+        KEYS: the stock hash, the journal. ARGV: pairs of dvd id and stock.
+     */
+    private static final RedisScript<Long> SET_SCRIPT = RedisScript.of("""
+            for i = 1, #ARGV, 2 do
+                redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+                redis.call('XADD', KEYS[2], '*', 'id', ARGV[i], 'stock', ARGV[i + 1])
+            end
+            return #ARGV / 2
+            """, Long.class);
+    private final StringRedisTemplate stringRedisTemplate;
+    private final boolean enabled;
+
+    public DvdStock(StringRedisTemplate stringRedisTemplate, DvdStockProperties stockProperties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.enabled = stockProperties.getWriteBehind().isEnabled();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the stock of the Dvd, or null if it is not loaded.
+     */
+    public Integer get(String dvdId) {
+        Object stock = stringRedisTemplate.opsForHash().get(STOCK_KEY, dvdId);
+
+        return stock == null ? null : Integer.valueOf(stock.toString());
+    }
+
+    /**
+     * Same as get() for a batch of Dvds, with a single HMGET.
+     *
+     * @return the stock of every Dvd, in the order of the ids, with null for every Dvd that is not loaded.
+     */
+    public List<Integer> getAll(List<String> dvdIds) {
+        List<Object> stocks = stringRedisTemplate.opsForHash().multiGet(STOCK_KEY, new ArrayList<Object>(dvdIds));
+
+        return stocks.stream()
+                .map(stock -> stock == null ? null : Integer.valueOf(stock.toString()))
+                .toList();
+    }
+
+    /**
+     * Adds the change to the stock of the Dvd, unless that would make it negative. The stock of the Dvd is loaded
+     * with the loader first, if it is not loaded. Every change is journaled, only the loaded stock is not, since it
+     * is the stock of the database.
+     *
+     * @return the stock after the change, INSUFFICIENT if the stock is less than the change, or null if the loader
+     * returned null
+     */
+    public Long add(String dvdId, int delta, Supplier<Integer> loader) {
+        Long stock = add(dvdId, delta);
+        if (stock != null) {
+            return stock;
+        }
+
+        Integer loaded = loader.get();
+        if (loaded == null) {
+            return null;
+        }
+        stringRedisTemplate.opsForHash().putIfAbsent(STOCK_KEY, dvdId, loaded.toString());
+
+        return add(dvdId, delta);
+    }
+
+    /**
+     * Sets the stock of every Dvd with a single script, whether it is loaded or not.
+     */
+    public void setAll(Map<UUID, Integer> stocks) {
+        if (stocks.isEmpty()) {
+            return;
+        }
+
+        List<String> args = new ArrayList<>(stocks.size() * 2);
+        stocks.forEach((dvdId, stock) -> {
+            args.add(dvdId.toString());
+            args.add(stock.toString());
+        });
+        stringRedisTemplate.execute(SET_SCRIPT, List.of(STOCK_KEY, JOURNAL_KEY), args.toArray());
+    }
+
+    /*
+        The entries of the Dvd that are still in the journal are flushed, the update skips the Dvds that no longer
+        exist.
+     */
+    public void delete(String dvdId) {
+        stringRedisTemplate.opsForHash().delete(STOCK_KEY, dvdId);
+    }
+
+    /**
+     * Deletes the stock of every Dvd, see DvdStockFlusher.
+     */
+    public void clear() {
+        stringRedisTemplate.delete(STOCK_KEY);
+    }
+
+    /**
+     * @return the oldest count entries of the journal. The flushed entries are trimmed, so these are the entries that
+     * were not flushed, apart from the ones of a flush that failed to trim them.
+     */
+    public List<MapRecord<String, Object, Object>> readJournal(int count) {
+        List<MapRecord<String, Object, Object>> entries = stringRedisTemplate.opsForStream().range(
+                JOURNAL_KEY,
+                Range.unbounded(),
+                Limit.limit().count(count));
+
+        return entries == null ? List.of() : entries;
+    }
+
+    public void trimJournal(List<RecordId> entryIds) {
+        if (entryIds.isEmpty()) {
+            return;
+        }
+
+        stringRedisTemplate.opsForStream().delete(JOURNAL_KEY, entryIds.toArray(RecordId[]::new));
+    }
+
+    public long journalSize() {
+        Long size = stringRedisTemplate.opsForStream().size(JOURNAL_KEY);
+
+        return size == null ? 0 : size;
+    }
+
+    private Long add(String dvdId, int delta) {
+        return stringRedisTemplate.execute(
+                ADD_SCRIPT,
+                List.of(STOCK_KEY, JOURNAL_KEY),
+                dvdId,
+                String.valueOf(delta));
+    }
+}
@@ -0,0 +1,203 @@
+package gr.aegean.cache;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gr.aegean.config.DvdStockProperties;
+import gr.aegean.entity.Dvd;
+import gr.aegean.repository.DvdRepository;
+import gr.aegean.repository.StockFlushRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Writes the journal of the stock changes to the database. Every batch is applied in a transaction that also advances
+ * the offset of the journal, after which its entries are trimmed. The entries up to the offset were already applied,
+ * so if an instance crashes between the commit and the trim, they are only trimmed by the next flush. The batch is
+ * coalesced to a single update per Dvd, with the stock of its last entry.
+ * The lag is the age of the oldest entry of the journal that was not flushed.
+ * The stock hash is only kept up to date while the stock is written behind, so an instance that starts with it
+ * disabled drains the journal and deletes the hash. Once the stock is written behind again, the stock of every Dvd is
+ * loaded from the database on its first change, instead of from a hash that missed the changes made in between.
+ */
+@Slf4j
+@Component
+public class DvdStockFlusher implements ApplicationRunner {
+    private final DvdStock dvdStock;
+    private final DvdRepository dvdRepository;
+    private final StockFlushRepository stockFlushRepository;
+    private final DvdCache dvdCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final AtomicLong pending = new AtomicLong();
+    private final Counter flushed;
+    private final Counter errors;
+    private final Timer duration;
+
+    public DvdStockFlusher(DvdStock dvdStock,
+                           DvdRepository dvdRepository,
+                           StockFlushRepository stockFlushRepository,
+                           DvdCache dvdCache,
+                           PlatformTransactionManager transactionManager,
+                           DvdStockProperties stockProperties,
+                           MeterRegistry meterRegistry) {
+        this.dvdStock = dvdStock;
+        this.dvdRepository = dvdRepository;
+        this.stockFlushRepository = stockFlushRepository;
+        this.dvdCache = dvdCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = stockProperties.getWriteBehind().getBatchSize();
+
+        TimeGauge.builder("dvd.stock.flush.lag", lagMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Age of the oldest stock change that was not written to the database")
+                .register(meterRegistry);
+        Gauge.builder("dvd.stock.journal.pending", pending, AtomicLong::get)
+                .description("Stock changes that were not written to the database")
+                .register(meterRegistry);
+        this.flushed = Counter.builder("dvd.stock.flushed")
+                .description("Stock changes written to the database")
+                .register(meterRegistry);
+        this.errors = Counter.builder("dvd.stock.flush.errors")
+                .description("Flushes of the stock journal that failed")
+                .register(meterRegistry);
+        this.duration = Timer.builder("dvd.stock.flush.duration")
+                .description("Time taken to write a batch of stock changes to the database")
+                .register(meterRegistry);
+    }
+
+    /*
+        Batches are flushed until the journal is drained, so a backlog does not have to wait for the next run.
+     */
+    @Scheduled(fixedDelayString = "${dvd.stock.write-behind.flush-interval:PT1S}")
+    public void flush() {
+        if (!dvdStock.isEnabled()) {
+            return;
+        }
+
+        try {
+            while (flushBatch() == batchSize) {
+                log.debug("Flushed a full batch of stock changes, flushing the next one");
+            }
+        } catch (RuntimeException re) {
+            errors.increment();
+            log.warn("Failed to flush the stock journal", re);
+        } finally {
+            recordLag();
+        }
+    }
+
+    /*
+        The hash is only deleted once the journal is empty, the stock of the entries that were not flushed would be
+        lost otherwise.
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (dvdStock.isEnabled()) {
+            return;
+        }
+
+        try {
+            while (flushBatch() == batchSize) {
+                log.debug("Flushed a full batch of stock changes left by the write-behind, flushing the next one");
+            }
+            if (dvdStock.journalSize() == 0) {
+                dvdStock.clear();
+            }
+        } catch (RuntimeException re) {
+            errors.increment();
+            log.warn("Failed to drain the stock journal", re);
+        }
+    }
+
+    /**
+     * @return the number of entries that were read from the journal
+     */
+    public int flushBatch() {
+        List<MapRecord<String, Object, Object>> entries = dvdStock.readJournal(batchSize);
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        /*
+            The entries up to the offset were applied by an earlier flush, only the rest are counted as flushed.
+         */
+        Integer applied = transactionTemplate.execute(status -> {
+            RecordId offset = RecordId.of(stockFlushRepository.lockOffset(DvdStock.JOURNAL_KEY));
+            Map<UUID, Integer> stocks = new LinkedHashMap<>();
+            RecordId last = null;
+            int changes = 0;
+            for (MapRecord<String, Object, Object> entry : entries) {
+                if (compare(entry.getId(), offset) <= 0) {
+                    continue;
+                }
+
+                stocks.put(
+                        UUID.fromString(entry.getValue().get("id").toString()),
+                        Integer.valueOf(entry.getValue().get("stock").toString()));
+                last = entry.getId();
+                changes++;
+            }
+            if (last == null) {
+                return 0;
+            }
+
+            List<Dvd> dvds = dvdRepository.updateQuantities(stocks);
+            stockFlushRepository.updateOffset(DvdStock.JOURNAL_KEY, last.getValue());
+            dvdCache.updateAll(dvds);
+
+            return changes;
+        });
+
+        List<RecordId> entryIds = new ArrayList<>(entries.size());
+        entries.forEach(entry -> entryIds.add(entry.getId()));
+        dvdStock.trimJournal(entryIds);
+
+        int changes = applied == null ? 0 : applied;
+        flushed.increment(changes);
+        duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.debug("Flushed {} of {} stock changes read from the journal", changes, entries.size());
+
+        return entries.size();
+    }
+
+    private void recordLag() {
+        try {
+            List<MapRecord<String, Object, Object>> oldest = dvdStock.readJournal(1);
+            lagMillis.set(oldest.isEmpty()
+                    ? 0
+                    : Math.max(0, System.currentTimeMillis() - oldest.get(0).getId().getTimestamp()));
+            pending.set(dvdStock.journalSize());
+        } catch (RuntimeException re) {
+            log.debug("Failed to read the lag of the stock journal", re);
+        }
+    }
+
+    private static int compare(RecordId first, RecordId second) {
+        int byTimestamp = Long.compare(first.getTimestamp(), second.getTimestamp());
+
+        return byTimestamp != 0 ? byTimestamp : Long.compare(first.getSequence(), second.getSequence());
+    }
+}
@@ -0,0 +1,124 @@
+package gr.aegean.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+import gr.aegean.entity.Dvd;
+import gr.aegean.model.dto.dvd.DvdSuggestion;
+
+
+/**
+ * In-process index of the Dvd titles for prefix (autocomplete) queries. The titles are kept sorted ignoring case,
+ * so the Dvds that start with a prefix are a contiguous range, found in O(log n) without touching the database.
+ * Reads are lock free. Writes of this instance are applied incrementally, the writes of the other instances are
+ * picked up on the next rebuild.
+ */
+@Component
+public class DvdTitleIndex {
+    private volatile Entries entries = new Entries();
+    private Entries building;
+
+    /**
+     * @param prefix the normalized prefix, matched ignoring case
+     * @return up to limit Dvds whose title starts with the prefix, ordered by title
+     */
+    public List<DvdSuggestion> findByPrefix(String prefix, int limit) {
+        String from = prefix.toLowerCase(Locale.ROOT);
+        List<DvdSuggestion> suggestions = new ArrayList<>(limit);
+
+        for (Map.Entry<String, DvdSuggestion> entry : entries.byTitle.tailMap(from, true).entrySet()) {
+            if (suggestions.size() == limit || !entry.getKey().startsWith(from)) {
+                break;
+            }
+            suggestions.add(entry.getValue());
+        }
+
+        return suggestions;
+    }
+
+    public synchronized void add(Dvd dvd) {
+        entries.add(dvd);
+        if (building != null) {
+            building.add(dvd);
+        }
+    }
+
+    public synchronized void remove(UUID dvdId) {
+        entries.remove(dvdId);
+        if (building != null) {
+            building.removed.add(dvdId);
+            building.remove(dvdId);
+        }
+    }
+
+    /**
+     * Replaces the index with the Dvds passed by the source to its consumer. Reads are served by the previous index
+     * until the new one is complete, and writes that happen meanwhile are applied to both. Every Dvd is loaded under
+     * the lock of the writes, so that a removal can not run between the check of the removed ids and the add.
+     */
+    public void rebuild(Consumer<Consumer<Dvd>> source) {
+        Entries rebuilt = new Entries();
+        synchronized (this) {
+            building = rebuilt;
+        }
+
+        try {
+            source.accept(dvd -> load(rebuilt, dvd));
+        } finally {
+            synchronized (this) {
+                if (building == rebuilt) {
+                    entries = rebuilt;
+                }
+                building = null;
+            }
+        }
+    }
+
+    private synchronized void load(Entries rebuilt, Dvd dvd) {
+        rebuilt.load(dvd);
+    }
+
+    public int size() {
+        return entries.keys.size();
+    }
+
+    /*
+        The key of every title is the lower-cased title followed by the id, so that Dvds with the same title are kept
+        apart. The ids removed during a rebuild are remembered, so that a row that was read before the removal is not
+        loaded back.
+     */
+    private static final class Entries {
+        private final ConcurrentSkipListMap<String, DvdSuggestion> byTitle = new ConcurrentSkipListMap<>();
+        private final Map<UUID, String> keys = new ConcurrentHashMap<>();
+        private final Set<UUID> removed = ConcurrentHashMap.newKeySet();
+
+        private void add(Dvd dvd) {
+            String key = dvd.getTitle().toLowerCase(Locale.ROOT) + '\u0000' + dvd.getId();
+
+            byTitle.put(key, new DvdSuggestion(dvd.getId(), dvd.getTitle()));
+            keys.put(dvd.getId(), key);
+        }
+
+        private void load(Dvd dvd) {
+            if (!removed.contains(dvd.getId())) {
+                add(dvd);
+            }
+        }
+
+        private void remove(UUID dvdId) {
+            String key = keys.remove(dvdId);
+            if (key != null) {
+                byTitle.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package gr.aegean.cache;
+
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import gr.aegean.entity.Dvd;
+
+import reactor.core.publisher.Mono;
+
+
+/**
+ * Non-blocking reads of the Redis tier of the dvd cache over Lettuce, in the layout that the DvdCacheStore writes, and
+ * of the stock that the DvdStock writes behind. There are no writes, misses are cached by the DvdCache, so the ttl,
+ * the jitter and the entries limit of the KEY layout are applied in a single place.
+ */
+public class ReactiveDvdCacheStore implements AutoCloseable {
+    private final LettuceConnectionFactory connectionFactory;
+    private final ReactiveRedisTemplate<String, Dvd> redisTemplate;
+    private final DvdCacheLayout layout;
+    private final String keyPrefix;
+
+    public ReactiveDvdCacheStore(LettuceConnectionFactory connectionFactory,
+                                 DvdCacheLayout layout,
+                                 RedisSerializer<Dvd> dvdSerializer,
+                                 String keyPrefix) {
+        RedisSerializationContext<String, Dvd> serializationContext = RedisSerializationContext
+                .<String, Dvd>newSerializationContext(new StringRedisSerializer())
+                .value(dvdSerializer)
+                .hashKey(new StringRedisSerializer())
+                .hashValue(dvdSerializer)
+                .build();
+
+        this.connectionFactory = connectionFactory;
+        this.redisTemplate = new ReactiveRedisTemplate<>(connectionFactory, serializationContext);
+        this.layout = layout;
+        this.keyPrefix = keyPrefix;
+    }
+
+    /**
+     * @return the cached Dvd, or an empty Mono if it is not cached.
+     */
+    public Mono<Dvd> get(String dvdId) {
+        return switch (layout) {
+            case HASH -> redisTemplate.<String, Dvd>opsForHash().get(RedisHashDvdCacheStore.CACHE_NAME, dvdId);
+            case KEY -> redisTemplate.opsForValue().get(keyPrefix + dvdId);
+        };
+    }
+
+    /**
+     * @return the stock of the Dvd, or an empty Mono if it is not loaded, see DvdStock.get().
+     */
+    public Mono<Integer> stock(String dvdId) {
+        return redisTemplate.<String, String, String>opsForHash(RedisSerializationContext.string())
+                .get(DvdStock.STOCK_KEY, dvdId)
+                .map(Integer::valueOf);
+    }
+
+    @Override
+    public void close() {
+        connectionFactory.destroy();
+    }
+}
@@ -0,0 +1,138 @@
+package gr.aegean.cache;
+
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import gr.aegean.entity.Dvd;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import lombok.RequiredArgsConstructor;
+
+
+@RequiredArgsConstructor
+public class RedisHashDvdCacheStore implements DvdCacheStore {
+    public static final String CACHE_NAME = "dvds";
+    /*
+        KEYS: the hash. ARGV: the dvd id, the expected Dvd, the Dvd. A missing field is nil, which is never equal to
+        the expected Dvd.
+     */
+    private static final byte[] REPLACE_SCRIPT = """
+            if redis.call('HGET', KEYS[1], ARGV[1]) ~= ARGV[2] then
+                return 0
+            end
+            redis.call('HSET', KEYS[1], ARGV[1], ARGV[3])
+            return 1
+            """.getBytes(StandardCharsets.UTF_8);
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    @Override
+    public Dvd get(String dvdId) {
+        return (Dvd) redisTemplate.opsForHash().get(CACHE_NAME, dvdId);
+    }
+
+    /*
+        The fields of a hash can not expire.
+     */
+    @Override
+    public CachedDvd getWithTtl(String dvdId) {
+        Dvd dvd = get(dvdId);
+
+        return dvd == null ? null : new CachedDvd(dvd, CachedDvd.NO_EXPIRY);
+    }
+
+    /*
+        A single HMGET.
+     */
+    @Override
+    public List<Dvd> getAll(List<String> dvdIds) {
+        List<Object> dvds = redisTemplate.opsForHash().multiGet(CACHE_NAME, new ArrayList<Object>(dvdIds));
+
+        return dvds.stream()
+                .map(Dvd.class::cast)
+                .toList();
+    }
+
+    @Override
+    public void put(Dvd dvd) {
+        redisTemplate.opsForHash().put(CACHE_NAME, dvd.getId().toString(), dvd);
+    }
+
+    @Override
+    public boolean putIfAbsent(Dvd dvd) {
+        return Boolean.TRUE.equals(redisTemplate.opsForHash().putIfAbsent(CACHE_NAME, dvd.getId().toString(), dvd));
+    }
+
+    @Override
+    public boolean replace(Dvd expected, Dvd dvd) {
+        RedisSerializer<Object> serializer = hashValueSerializer();
+        byte[] key = CACHE_NAME.getBytes(StandardCharsets.UTF_8);
+
+        Long replaced = redisTemplate.execute((RedisCallback<Long>) connection -> connection.scriptingCommands().eval(
+                REPLACE_SCRIPT,
+                ReturnType.INTEGER,
+                1,
+                key,
+                dvd.getId().toString().getBytes(StandardCharsets.UTF_8),
+                serializer.serialize(expected),
+                serializer.serialize(dvd)));
+
+        return replaced != null && replaced == 1;
+    }
+
+    /*
+        A single HSET with every field of the batch.
+     */
+    @Override
+    public void putAll(Collection<Dvd> dvds) {
+        if (dvds.isEmpty()) {
+            return;
+        }
+
+        Map<String, Dvd> entries = dvds.stream()
+                .collect(Collectors.toMap(dvd -> dvd.getId().toString(), Function.identity(), (first, last) -> last));
+        redisTemplate.opsForHash().putAll(CACHE_NAME, entries);
+    }
+
+    /*
+        One HSETNX per Dvd, all sent with a single pipeline.
+     */
+    @Override
+    public void putAllIfAbsent(Collection<Dvd> dvds) {
+        if (dvds.isEmpty()) {
+            return;
+        }
+
+        RedisSerializer<Object> serializer = hashValueSerializer();
+        byte[] key = CACHE_NAME.getBytes(StandardCharsets.UTF_8);
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Dvd dvd : dvds) {
+                connection.hashCommands().hSetNX(
+                        key,
+                        dvd.getId().toString().getBytes(StandardCharsets.UTF_8),
+                        serializer.serialize(dvd));
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(String dvdId) {
+        redisTemplate.opsForHash().delete(CACHE_NAME, dvdId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<Object> hashValueSerializer() {
+        return (RedisSerializer<Object>) redisTemplate.getHashValueSerializer();
+    }
+}
@@ -0,0 +1,254 @@
+package gr.aegean.cache;
+
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.RedisZSetCommands.ZAddArgs;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import gr.aegean.entity.Dvd;
+
+
+/**
+ * Stores every Dvd under its own key, with the ttl and the key prefix of the RedisCacheConfiguration. A random jitter
+ * is added to the ttl of every entry, so that Dvds cached together do not expire together.
+ * When maxEntries is positive, the ids are also kept in a sorted set scored by the time they were written, and the
+ * oldest written entries are evicted once the limit is exceeded. Members older than the maximum ttl have already
+ * expired, so they are removed from the index on every write.
+ */
+public class RedisKeyDvdCacheStore implements DvdCacheStore {
+    public static final String CACHE_NAME = "dvd";
+    /*
+        KEYS: the key of the Dvd, the index. ARGV: the expected Dvd, the Dvd, the ttl in milliseconds, the time of the
+        write, or an empty string when there is no index, the dvd id. A missing key is nil, which is never equal to
+        the expected Dvd. The time of the write of an id that is still in the index is updated, as by putAll().
+     */
+    private static final byte[] REPLACE_SCRIPT = """
+            if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])
+            if ARGV[4] ~= '' then
+                redis.call('ZADD', KEYS[2], 'XX', ARGV[4], ARGV[5])
+            end
+            return 1
+            """.getBytes(StandardCharsets.UTF_8);
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final String keyPrefix;
+    private final byte[] indexKey;
+    private final Duration ttl;
+    private final Duration ttlJitter;
+    private final long maxEntries;
+
+    public RedisKeyDvdCacheStore(RedisTemplate<String, Object> redisTemplate,
+                                 RedisCacheConfiguration cacheConfiguration,
+                                 Duration ttlJitter,
+                                 long maxEntries) {
+        if (cacheConfiguration.getTtl().isZero() || cacheConfiguration.getTtl().isNegative()) {
+            throw new IllegalArgumentException("The ttl of the dvd cache must be positive");
+        }
+
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = cacheConfiguration.getKeyPrefixFor(CACHE_NAME);
+        this.indexKey = (keyPrefix + "index").getBytes(StandardCharsets.UTF_8);
+        this.ttl = cacheConfiguration.getTtl();
+        this.ttlJitter = ttlJitter;
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public Dvd get(String dvdId) {
+        return (Dvd) redisTemplate.opsForValue().get(keyPrefix + dvdId);
+    }
+
+    /*
+        GET and PTTL with a single pipeline. PTTL is negative for a key without a ttl, which this store never writes,
+        and for a key that expired between the two commands.
+     */
+    @Override
+    public CachedDvd getWithTtl(String dvdId) {
+        byte[] key = key(dvdId);
+
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.stringCommands().get(key);
+            connection.keyCommands().pTtl(key);
+
+            return null;
+        });
+
+        Dvd dvd = (Dvd) results.get(0);
+        if (dvd == null) {
+            return null;
+        }
+        Long ttl = (Long) results.get(1);
+
+        return new CachedDvd(dvd, ttl == null || ttl < 0 ? 0 : ttl);
+    }
+
+    /*
+        A single MGET. The ttls are not read, the Dvds of a batch are not refreshed early.
+     */
+    @Override
+    public List<Dvd> getAll(List<String> dvdIds) {
+        List<Object> dvds = redisTemplate.opsForValue().multiGet(dvdIds.stream()
+                .map(dvdId -> keyPrefix + dvdId)
+                .toList());
+        if (dvds == null) {
+            return Collections.nCopies(dvdIds.size(), null);
+        }
+
+        return dvds.stream()
+                .map(Dvd.class::cast)
+                .toList();
+    }
+
+    @Override
+    public void put(Dvd dvd) {
+        putAll(List.of(dvd));
+    }
+
+    /*
+        The SET is the first command of the pipeline.
+     */
+    @Override
+    public boolean putIfAbsent(Dvd dvd) {
+        return Boolean.TRUE.equals(write(List.of(dvd), SetOption.ifAbsent(), ZAddArgs.ifNotExists()).get(0));
+    }
+
+    /*
+        The ttl of the Dvd starts over, as for every other write.
+     */
+    @Override
+    public boolean replace(Dvd expected, Dvd dvd) {
+        RedisSerializer<Object> serializer = valueSerializer();
+        String dvdId = dvd.getId().toString();
+        String now = maxEntries > 0 ? String.valueOf(System.currentTimeMillis()) : "";
+
+        Long replaced = redisTemplate.execute((RedisCallback<Long>) connection -> connection.scriptingCommands().eval(
+                REPLACE_SCRIPT,
+                ReturnType.INTEGER,
+                2,
+                key(dvdId),
+                indexKey,
+                serializer.serialize(expected),
+                serializer.serialize(dvd),
+                String.valueOf(nextTtl()).getBytes(StandardCharsets.UTF_8),
+                now.getBytes(StandardCharsets.UTF_8),
+                dvdId.getBytes(StandardCharsets.UTF_8)));
+
+        return replaced != null && replaced == 1;
+    }
+
+    @Override
+    public void putAll(Collection<Dvd> dvds) {
+        write(dvds, SetOption.upsert(), ZAddArgs.empty());
+    }
+
+    /*
+        The index only gets the ids that are not in it yet, so that the time that an entry was written, and its place
+        in the eviction order, does not change when it was not overwritten.
+     */
+    @Override
+    public void putAllIfAbsent(Collection<Dvd> dvds) {
+        write(dvds, SetOption.ifAbsent(), ZAddArgs.ifNotExists());
+    }
+
+    @Override
+    public void delete(String dvdId) {
+        byte[] key = key(dvdId);
+        byte[] id = dvdId.getBytes(StandardCharsets.UTF_8);
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.keyCommands().del(key);
+            connection.zSetCommands().zRem(indexKey, id);
+
+            return null;
+        });
+    }
+
+    /*
+        Every SET of the batch, and the updates of the index, are sent with a single pipeline, and the index is trimmed
+        once for the whole batch.
+
+        @return the results of the pipeline.
+     */
+    private List<Object> write(Collection<Dvd> dvds, SetOption setOption, ZAddArgs zAddArgs) {
+        if (dvds.isEmpty()) {
+            return List.of();
+        }
+
+        RedisSerializer<Object> serializer = valueSerializer();
+        long now = System.currentTimeMillis();
+
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Dvd dvd : dvds) {
+                String dvdId = dvd.getId().toString();
+                connection.stringCommands().set(
+                        key(dvdId),
+                        serializer.serialize(dvd),
+                        Expiration.milliseconds(nextTtl()),
+                        setOption);
+                if (maxEntries > 0) {
+                    connection.zSetCommands().zAdd(indexKey, now, dvdId.getBytes(StandardCharsets.UTF_8), zAddArgs);
+                }
+            }
+            if (maxEntries > 0) {
+                connection.zSetCommands().zRemRangeByScore(indexKey, 0, now - ttl.plus(ttlJitter).toMillis());
+                connection.zSetCommands().zCard(indexKey);
+            }
+
+            return null;
+        });
+
+        if (maxEntries > 0) {
+            long size = (Long) results.get(results.size() - 1);
+            if (size > maxEntries) {
+                evictOldest(size - maxEntries);
+            }
+        }
+
+        return results;
+    }
+
+    private void evictOldest(long count) {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            Set<byte[]> oldest = connection.zSetCommands().zRange(indexKey, 0, count - 1);
+            if (oldest == null || oldest.isEmpty()) {
+                return null;
+            }
+
+            connection.zSetCommands().zRem(indexKey, oldest.toArray(byte[][]::new));
+            connection.keyCommands().del(oldest.stream()
+                    .map(id -> key(new String(id, StandardCharsets.UTF_8)))
+                    .toArray(byte[][]::new));
+
+            return null;
+        });
+    }
+
+    private long nextTtl() {
+        long jitter = ttlJitter.toMillis();
+
+        return ttl.toMillis() + (jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0);
+    }
+
+    private byte[] key(String dvdId) {
+        return (keyPrefix + dvdId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<Object> valueSerializer() {
+        return (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+    }
+}
@@ -0,0 +1,64 @@
+package gr.aegean.cache;
+
+import io.micrometer.core.instrument.Counter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+
+/**
+ * Coalesces concurrent loads of the same key. The first caller runs the loader, every caller that arrives while the
+ * load is in flight waits for it and gets the same result, or the same exception.
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalescedWaiters;
+
+    public SingleFlight(Counter coalescedWaiters) {
+        this.coalescedWaiters = coalescedWaiters;
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalescedWaiters.increment();
+
+            return await(existing);
+        }
+
+        try {
+            V value = loader.get();
+            flight.complete(value);
+
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /*
+        join() wraps the exception of the loader in a CompletionException, we rethrow the original one, so the waiters
+        fail exactly like the caller that ran the loader.
+     */
+    private V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException ce) {
+            if (ce.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (ce.getCause() instanceof Error error) {
+                throw error;
+            }
+
+            throw ce;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package gr.aegean.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+import gr.aegean.cache.DvdCacheFormat;
+import gr.aegean.cache.DvdCacheLayout;
+
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "dvd.cache")
+public class DvdCacheProperties {
+    private DvdCacheLayout layout = DvdCacheLayout.HASH;
+    /*
+        The format the Dvds are written in. Both formats are always read, so every instance has to run a version that
+        reads BINARY before any of them writes it.
+     */
+    private DvdCacheFormat format = DvdCacheFormat.JSON;
+    /*
+        Only applies to the KEY layout. The actual ttl of every entry is ttl plus a random duration up to ttlJitter.
+        When maxEntries is positive, the oldest written entries are evicted once there are more.
+     */
+    private Duration ttl = Duration.ofHours(1);
+    private Duration ttlJitter = Duration.ofMinutes(5);
+    private long maxEntries = 0;
+    private Near near = new Near();
+    private Refresh refresh = new Refresh();
+    private Negative negative = new Negative();
+    private Search search = new Search();
+    private Response response = new Response();
+    private Warmup warmup = new Warmup();
+
+    /*
+        The in-process cache in front of Redis. Entries are evicted on every write through Redis pub/sub, the ttl only
+        bounds how long an instance can serve a value that it missed an invalidation message for.
+     */
+    @Setter
+    @Getter
+    public static class Near {
+        private boolean enabled = true;
+        private long maximumSize = 10_000;
+        private Duration ttl = Duration.ofSeconds(30);
+    }
+
+    /*
+        Probabilistic early refresh of the entries that expire, i.e. only of the KEY layout. A hit is reloaded in the
+        background with a probability that grows as the entry approaches its expiry and with the time a load takes,
+        scaled by beta. Up to threads reloads run at a time, and up to queueSize wait, the rest are dropped.
+     */
+    @Setter
+    @Getter
+    public static class Refresh {
+        private boolean enabled = true;
+        private double beta = 1.0;
+        private int threads = 2;
+        private int queueSize = 1000;
+    }
+
+    /*
+        Ids that were not found in the database are remembered for the ttl, in Redis and in a bounded in-process cache,
+        so that repeated lookups of them do not reach the database.
+     */
+    @Setter
+    @Getter
+    public static class Negative {
+        private boolean enabled = true;
+        private Duration ttl = Duration.ofSeconds(60);
+        private long maximumSize = 100_000;
+    }
+
+    /*
+        The results of title searches, cached in Redis for the ttl.
+     */
+    @Setter
+    @Getter
+    public static class Search {
+        private boolean enabled = false;
+        private Duration ttl = Duration.ofSeconds(30);
+    }
+
+    /*
+        The serialized responses of single Dvds, cached in Redis for the ttl, and in an in-process tier of up to
+        maximumSize responses, which is enabled and expires along with the near cache.
+     */
+    @Setter
+    @Getter
+    public static class Response {
+        private boolean enabled = false;
+        private Duration ttl = Duration.ofMinutes(10);
+        private long maximumSize = 10_000;
+    }
+
+    /*
+        Loads the catalogue into Redis on startup, chunkSize Dvds per pipeline and up to parallelism pipelines at a
+        time. The application reports ready once the warm-up completes, or after the timeout. While it is enabled,
+        evicted Dvds leave a tombstone for the timeout, so that the warm-up does not cache them again.
+     */
+    @Setter
+    @Getter
+    public static class Warmup {
+        private boolean enabled = false;
+        private int chunkSize = 1000;
+        private int parallelism = 4;
+        private Duration timeout = Duration.ofSeconds(60);
+    }
+}
@@ -0,0 +1,30 @@
+package gr.aegean.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "dvd.stock")
+public class DvdStockProperties {
+    private WriteBehind writeBehind = new WriteBehind();
+
+    /*
+        Checkouts and returns change the stock in Redis, and the changes are written to the database in batches, every
+        flushInterval. The stock of the database, and of the cached Dvds, lags behind by up to that much.
+     */
+    @Setter
+    @Getter
+    public static class WriteBehind {
+        private boolean enabled = false;
+        private Duration flushInterval = Duration.ofSeconds(1);
+        private int batchSize = 1000;
+    }
+}
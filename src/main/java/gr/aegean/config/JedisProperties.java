@@ -6,6 +6,8 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 
 @Setter
 @Getter
@@ -15,4 +17,9 @@ public class JedisProperties {
     private Integer maxActive;
     private Integer maxIdle;
     private Integer minIdle;
+    /*
+        How long a caller waits for a connection when all of them are in use, before failing. Without it, a caller
+        waits forever, and with virtual threads there can be far more callers than connections.
+     */
+    private Duration maxWait = Duration.ofSeconds(2);
 }
@@ -0,0 +1,70 @@
+package gr.aegean.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "jwt")
+public class JwtProperties {
+    /*
+        The algorithm of the key that is generated on startup when no keys are configured. The tokens signed with a
+        generated key are only valid on the instance that signed them, and only until it restarts.
+     */
+    private SignatureAlgorithm algorithm = SignatureAlgorithm.ES256;
+    /*
+        The id (kid) of the key that signs the tokens, which must have a private key. Every other key only verifies
+        tokens, so a key is rotated by adding it to every instance first and making it the active key afterwards. The
+        first key with a private key is the active key by default.
+     */
+    private String activeKeyId;
+    private List<Key> keys = new ArrayList<>();
+    private KeyStore keyStore = new KeyStore();
+    private Cache cache = new Cache();
+
+    /*
+        A key in PEM files, the private key in PKCS#8 and the public key in X.509 (SubjectPublicKeyInfo) encoding. The
+        private key can be omitted for a key that only verifies tokens. RSA keys sign with RS256 and EC keys with
+        ES256, ES384 or ES512, according to their curve.
+     */
+    @Setter
+    @Getter
+    public static class Key {
+        private String id;
+        private Resource privateKey;
+        private Resource publicKey;
+    }
+
+    /*
+        Every RSA and EC key of the key store, with its alias as its id. The entries with a private key can sign
+        tokens, the certificate entries only verify them.
+     */
+    @Setter
+    @Getter
+    public static class KeyStore {
+        private Resource location;
+        private String password;
+        private String type = "PKCS12";
+    }
+
+    /*
+        The tokens that were verified, up to maximumSize of them, so that the signature of a token is verified once
+        and not on every request. A token is cached until it expires.
+     */
+    @Setter
+    @Getter
+    public static class Cache {
+        private boolean enabled = true;
+        private long maximumSize = 10_000;
+    }
+}
@@ -0,0 +1,21 @@
+package gr.aegean.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+
+/**
+ * Enables the @Timed annotations of the services and repositories. Every timer publishes a percentile histogram, so
+ * the percentiles can be aggregated across instances in Prometheus.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,65 @@
+package gr.aegean.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+
+import gr.aegean.cache.DvdRedisSerializer;
+import gr.aegean.cache.ReactiveDvdCacheStore;
+import gr.aegean.cache.RedisKeyDvdCacheStore;
+import gr.aegean.repository.ReactiveDvdRepository;
+
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * The R2DBC pool and the Lettuce connection of the reactive read path. Neither is exposed as a bean, they are owned
+ * and closed by the repository and the cache store. A ConnectionFactory bean would make the auto-configured
+ * DataSource back off, and a second RedisConnectionFactory would be ambiguous for the Jedis based beans.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "dvd.reactive", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReactiveConfig {
+    private final ReactiveProperties reactiveProperties;
+    private final RedisProperties redisProperties;
+    private final DvdCacheProperties dvdCacheProperties;
+
+    @Bean(destroyMethod = "close")
+    public ReactiveDvdRepository reactiveDvdRepository() {
+        ReactiveProperties.R2dbc r2dbc = reactiveProperties.getR2dbc();
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(r2dbc.getUrl())
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, r2dbc.getUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, r2dbc.getPassword())
+                .build();
+
+        ConnectionPoolConfiguration poolConfiguration = ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options))
+                .maxSize(r2dbc.getMaxSize())
+                .build();
+
+        return new ReactiveDvdRepository(new ConnectionPool(poolConfiguration));
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReactiveDvdCacheStore reactiveDvdCacheStore(RedisCacheConfiguration redisCacheConfiguration) {
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redisProperties.getHost(), redisProperties.getPort()));
+        connectionFactory.afterPropertiesSet();
+
+        return new ReactiveDvdCacheStore(
+                connectionFactory,
+                dvdCacheProperties.getLayout(),
+                new DvdRedisSerializer(dvdCacheProperties.getFormat()),
+                redisCacheConfiguration.getKeyPrefixFor(RedisKeyDvdCacheStore.CACHE_NAME));
+    }
+}
@@ -0,0 +1,32 @@
+package gr.aegean.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "dvd.reactive")
+public class ReactiveProperties {
+    /*
+        Exposes the non-blocking read endpoints under /api/v1/reactive/dvds.
+     */
+    private boolean enabled = false;
+    private R2dbc r2dbc = new R2dbc();
+
+    /*
+        The connections of the reactive endpoints, separate from the Hikari pool of the blocking ones.
+     */
+    @Setter
+    @Getter
+    public static class R2dbc {
+        private String url = "r2dbc:postgresql://localhost:5432/dvd_store";
+        private String username;
+        private String password;
+        private int maxSize = 10;
+    }
+}
@@ -5,18 +5,25 @@ import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisClientConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 
-import gr.aegean.entity.Dvd;
+import gr.aegean.cache.DvdCache;
+import gr.aegean.cache.DvdCacheStore;
+import gr.aegean.cache.DvdRedisSerializer;
+import gr.aegean.cache.DvdResponseCache;
+import gr.aegean.cache.RedisHashDvdCacheStore;
+import gr.aegean.cache.RedisKeyDvdCacheStore;
 
 import redis.clients.jedis.JedisPoolConfig;
 
@@ -28,11 +35,17 @@ import redis.clients.jedis.JedisPoolConfig;
 public class RedisConfig {
     private final RedisProperties redisProperties;
     private final JedisProperties jedisProperties;
+    private final DvdCacheProperties dvdCacheProperties;
 
+    /**
+     * Keys are prefixed with the cache name followed by a single colon, e.g. "dvd:{id}".
+     */
     @Bean
     public RedisCacheConfiguration redisCacheConfiguration() {
         return RedisCacheConfiguration
                 .defaultCacheConfig()
+                .entryTtl(dvdCacheProperties.getTtl())
+                .computePrefixWith(cacheName -> cacheName + ":")
                 .disableCachingNullValues()
                 .serializeValuesWith(RedisSerializationContext
                         .SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()));
@@ -44,6 +57,8 @@ public class RedisConfig {
         jedisPoolConfig.setMaxTotal(jedisProperties.getMaxActive());
         jedisPoolConfig.setMaxIdle(jedisProperties.getMaxIdle());
         jedisPoolConfig.setMinIdle(jedisProperties.getMinIdle());
+        jedisPoolConfig.setBlockWhenExhausted(true);
+        jedisPoolConfig.setMaxWait(jedisProperties.getMaxWait());
 
         return jedisPoolConfig;
     }
@@ -65,7 +80,7 @@ public class RedisConfig {
 
     @Bean
     public RedisTemplate<String, Object> redisTemplate() {
-        Jackson2JsonRedisSerializer<Dvd> dvdSerializer = new Jackson2JsonRedisSerializer<>(Dvd.class);
+        DvdRedisSerializer dvdSerializer = new DvdRedisSerializer(dvdCacheProperties.getFormat());
         RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
         redisTemplate.setConnectionFactory(jedisConnectionFactory());
         redisTemplate.setKeySerializer(new StringRedisSerializer());
@@ -76,4 +91,36 @@ public class RedisConfig {
 
         return redisTemplate;
     }
+
+    @Bean
+    public StringRedisTemplate stringRedisTemplate() {
+        return new StringRedisTemplate(jedisConnectionFactory());
+    }
+
+    @Bean
+    public DvdCacheStore dvdCacheStore() {
+        return switch (dvdCacheProperties.getLayout()) {
+            case HASH -> new RedisHashDvdCacheStore(redisTemplate());
+            case KEY -> new RedisKeyDvdCacheStore(
+                    redisTemplate(),
+                    redisCacheConfiguration(),
+                    dvdCacheProperties.getTtlJitter(),
+                    dvdCacheProperties.getMaxEntries());
+        };
+    }
+
+    /**
+     * Delivers the invalidation messages of the other instances to the near cache and the response cache of this
+     * instance.
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(DvdCache dvdCache,
+                                                                       DvdResponseCache dvdResponseCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(jedisConnectionFactory());
+        container.addMessageListener(dvdCache, new ChannelTopic(DvdCache.INVALIDATION_CHANNEL));
+        container.addMessageListener(dvdResponseCache, new ChannelTopic(DvdCache.INVALIDATION_CHANNEL));
+
+        return container;
+    }
 }
\ No newline at end of file
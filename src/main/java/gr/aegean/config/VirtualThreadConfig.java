@@ -0,0 +1,51 @@
+package gr.aegean.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * Runs every request on its own virtual thread. The blocking calls of a request, JDBC and Jedis, unmount the virtual
+ * thread from its carrier instead of blocking a platform thread, so the number of concurrent requests is no longer
+ * bounded by the size of the Tomcat thread pool, but by the Hikari and Jedis pools.
+ * The application is compiled for Java 17, so the executor is looked up reflectively, and the application fails to
+ * start when the mode is enabled on an older runtime.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "dvd.virtual-threads", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class VirtualThreadConfig {
+    private final VirtualThreadProperties virtualThreadProperties;
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    @Bean(destroyMethod = "close")
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(MeterRegistry meterRegistry) {
+        return new VirtualThreadPinningMonitor(meterRegistry, virtualThreadProperties.getPinnedThreshold());
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException nsme) {
+            throw new IllegalStateException("Virtual threads require Java 21, the runtime is " + Runtime.version());
+        } catch (ReflectiveOperationException roe) {
+            throw new IllegalStateException("Failed to create the virtual thread executor", roe);
+        }
+    }
+}
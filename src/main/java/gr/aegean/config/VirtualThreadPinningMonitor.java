@@ -0,0 +1,61 @@
+package gr.aegean.config;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.List;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Streams the jdk.VirtualThreadPinned JFR events, emitted when a virtual thread blocks while pinned to its carrier
+ * thread, e.g. inside a synchronized block, and occupies the carrier for the whole time. Every event is recorded by
+ * the jvm.threads.virtual.pinned timer and logged at debug level with the frame that blocked.
+ */
+@Slf4j
+public class VirtualThreadPinningMonitor implements AutoCloseable {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private final RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry, Duration threshold) {
+        Timer pinned = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Time that virtual threads blocked while pinned to their carrier thread")
+                .register(meterRegistry);
+
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT)
+                .withThreshold(threshold)
+                .withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, event -> {
+            pinned.record(event.getDuration());
+            log.debug("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), blockingFrame(event));
+        });
+        recordingStream.startAsync();
+    }
+
+    @Override
+    public void close() {
+        recordingStream.close();
+    }
+
+    private static String blockingFrame(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "unknown";
+        }
+
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        if (frames.isEmpty()) {
+            return "unknown";
+        }
+
+        RecordedFrame frame = frames.get(0);
+
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
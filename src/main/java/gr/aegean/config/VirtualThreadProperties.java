@@ -0,0 +1,25 @@
+package gr.aegean.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "dvd.virtual-threads")
+public class VirtualThreadProperties {
+    /*
+        Requires Java 21. Requests are handled on a new virtual thread each, instead of the Tomcat thread pool.
+     */
+    private boolean enabled = false;
+    /*
+        Virtual threads that stay pinned to their carrier thread for longer are recorded.
+     */
+    private Duration pinnedThreshold = Duration.ofMillis(20);
+}
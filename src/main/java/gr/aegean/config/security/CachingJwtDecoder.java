@@ -0,0 +1,112 @@
+package gr.aegean.config.security;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+
+/**
+ * Caches the tokens that the delegate decoded, keyed by the SHA-256 digest of the token, so the signature of a token
+ * is verified on its first request and not on every one. The digest is collision resistant, so a token that was not
+ * verified can not be served the Jwt of another. Every token is cached until it expires, and a token without an
+ * expiry, or one that failed to decode, is not cached.
+ * The validators of the delegate also run only on the first request, which is safe as long as they only check the
+ * expiry, since an entry expires along with its token.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+    private final JwtDecoder delegate;
+    private final Cache<String, Jwt> cache;
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer verifications;
+
+    public CachingJwtDecoder(JwtDecoder delegate, long maximumSize, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry())
+                .build();
+        this.hits = cacheCounter(meterRegistry, "hit");
+        this.misses = cacheCounter(meterRegistry, "miss");
+        this.verifications = Timer.builder("jwt.verifications")
+                .description("Time taken to verify and decode a token that was not cached")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        String digest = digest(token);
+        Jwt jwt = cache.getIfPresent(digest);
+        if (jwt != null) {
+            hits.increment();
+
+            return jwt;
+        }
+        misses.increment();
+
+        long start = System.nanoTime();
+        try {
+            jwt = delegate.decode(token);
+        } finally {
+            verifications.record(Duration.ofNanos(System.nanoTime() - start));
+        }
+
+        if (jwt.getExpiresAt() != null && jwt.getExpiresAt().isAfter(Instant.now())) {
+            cache.put(digest, jwt);
+        }
+
+        return jwt;
+    }
+
+    private static String digest(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException("SHA-256 is not supported", nsae);
+        }
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("jwt.cache.gets")
+                .description("Lookups of the cache of verified tokens")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /*
+        The time to live of an entry is the time left until the expiry of its token.
+     */
+    private static class TokenExpiry implements Expiry<String, Jwt> {
+
+        @Override
+        public long expireAfterCreate(String digest, Jwt jwt, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), jwt.getExpiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, Jwt jwt, long currentTime, long currentDuration) {
+            return expireAfterCreate(digest, jwt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String digest, Jwt jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
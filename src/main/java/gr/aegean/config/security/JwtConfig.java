@@ -1,7 +1,9 @@
 package gr.aegean.config.security;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jwt.JwsHeader;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
@@ -9,50 +11,67 @@ import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 
-import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
-import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
 import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
 
-import java.security.KeyPair;
-import java.security.KeyPairGenerator;
-import java.security.NoSuchAlgorithmException;
-import java.security.interfaces.RSAPrivateKey;
-import java.security.interfaces.RSAPublicKey;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import gr.aegean.config.JwtProperties;
 
 
 @Configuration
 public class JwtConfig {
-    private final RSAPublicKey publicKey;
-    private final RSAPrivateKey privateKey;
-
-    public JwtConfig() throws NoSuchAlgorithmException {
-        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
-
-        keyPairGenerator.initialize(2048);
-        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+    private final JwtKeys jwtKeys;
+    private final JwtProperties jwtProperties;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
 
-        publicKey = (RSAPublicKey) keyPair.getPublic();
-        privateKey = (RSAPrivateKey) keyPair.getPrivate();
+    public JwtConfig(JwtProperties jwtProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.jwtKeys = JwtKeys.load(jwtProperties);
+        this.jwtProperties = jwtProperties;
+        this.meterRegistry = meterRegistry;
     }
 
-
+    /**
+     * Signs with the active key only, the header of every token names it.
+     */
     @Bean
     public JwtEncoder jwtEncoder() {
-        JWK jwk = new RSAKey
-                .Builder(publicKey)
-                .privateKey(privateKey)
-                .build();
-        JWKSource<SecurityContext> jwkSet = new ImmutableJWKSet<>(new JWKSet(jwk));
+        return new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(jwtKeys.signingKey())));
+    }
 
-        return new NimbusJwtEncoder(jwkSet);
+    @Bean
+    public JwsHeader jwsHeader() {
+        return jwtKeys.header();
     }
 
+    /**
+     * Verifies a token with the key named in its header, any of the configured keys. The claims, e.g. the expiry,
+     * are validated by the decoder of Spring, like the decoder of a single key does. Verifies the signature of every
+     * token once, with the cache enabled. The meter registry is optional, so that the decoder can be created by the
+     * tests of the web layer.
+     */
     @Bean
     public JwtDecoder jwtDecoder() {
-        return NimbusJwtDecoder.withPublicKey(publicKey).build();
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(
+                jwtKeys.algorithms(),
+                new ImmutableJWKSet<>(jwtKeys.verificationKeys())));
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+
+        JwtDecoder jwtDecoder = new NimbusJwtDecoder(jwtProcessor);
+        if (!jwtProperties.getCache().isEnabled()) {
+            return jwtDecoder;
+        }
+
+        return new CachingJwtDecoder(
+                jwtDecoder,
+                jwtProperties.getCache().getMaximumSize(),
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
     }
 
     /**
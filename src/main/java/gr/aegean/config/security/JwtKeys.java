@@ -0,0 +1,253 @@
+package gr.aegean.config.security;
+
+import org.springframework.core.io.Resource;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import gr.aegean.config.JwtProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * The keys of the tokens, identified by their key id (kid), which is set in the header of every token. The active key
+ * signs the tokens and every key verifies them, so instances that share the keys accept the tokens of each other, and
+ * of the previous active key after a rotation. RSA keys are used with RS256, EC keys with the ES algorithm of their
+ * curve. When no keys are configured, a key is generated with the configured algorithm.
+ */
+@Slf4j
+public class JwtKeys {
+    private static final List<String> KEY_ALGORITHMS = List.of("RSA", "EC");
+    private final JWKSet jwkSet;
+    private final JWK signingKey;
+
+    private JwtKeys(JWKSet jwkSet, JWK signingKey) {
+        this.jwkSet = jwkSet;
+        this.signingKey = signingKey;
+    }
+
+    public static JwtKeys load(JwtProperties jwtProperties) {
+        List<JWK> keys = new ArrayList<>();
+        for (JwtProperties.Key key : jwtProperties.getKeys()) {
+            keys.add(loadPem(key));
+        }
+        if (jwtProperties.getKeyStore().getLocation() != null) {
+            keys.addAll(loadKeyStore(jwtProperties.getKeyStore()));
+        }
+        if (keys.isEmpty()) {
+            log.warn("No jwt keys are configured, the tokens will only be valid on this instance until it restarts");
+            keys.add(generate(jwtProperties.getAlgorithm()));
+        }
+
+        Set<String> keyIds = new HashSet<>();
+        for (JWK key : keys) {
+            if (!keyIds.add(key.getKeyID())) {
+                throw new IllegalStateException("Duplicate jwt key id: " + key.getKeyID());
+            }
+        }
+
+        String activeKeyId = jwtProperties.getActiveKeyId();
+        JWK signingKey = keys.stream()
+                .filter(key -> activeKeyId == null ? key.isPrivate() : key.getKeyID().equals(activeKeyId))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No jwt key was found to sign the tokens with"));
+        if (!signingKey.isPrivate()) {
+            throw new IllegalStateException("The active jwt key has no private key: " + signingKey.getKeyID());
+        }
+
+        return new JwtKeys(new JWKSet(keys), signingKey);
+    }
+
+    public JWK signingKey() {
+        return signingKey;
+    }
+
+    /**
+     * @return the public part of every key.
+     */
+    public JWKSet verificationKeys() {
+        return jwkSet.toPublicJWKSet();
+    }
+
+    public Set<JWSAlgorithm> algorithms() {
+        return jwkSet.getKeys().stream()
+                .map(key -> JWSAlgorithm.parse(key.getAlgorithm().getName()))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * @return the header of the tokens signed with the active key.
+     */
+    public JwsHeader header() {
+        return JwsHeader
+                .with(SignatureAlgorithm.from(signingKey.getAlgorithm().getName()))
+                .keyId(signingKey.getKeyID())
+                .build();
+    }
+
+    private static JWK loadPem(JwtProperties.Key key) {
+        if (key.getId() == null || key.getPublicKey() == null) {
+            throw new IllegalStateException("Every jwt key needs an id and a public key");
+        }
+
+        try {
+            PublicKey publicKey = publicKey(decodePem(key.getPublicKey()));
+            PrivateKey privateKey = key.getPrivateKey() == null
+                    ? null
+                    : KeyFactory.getInstance(publicKey.getAlgorithm())
+                    .generatePrivate(new PKCS8EncodedKeySpec(decodePem(key.getPrivateKey())));
+
+            return toJwk(key.getId(), publicKey, privateKey);
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to load the jwt key: " + key.getId(), e);
+        }
+    }
+
+    private static List<JWK> loadKeyStore(JwtProperties.KeyStore keyStoreProperties) {
+        char[] password = keyStoreProperties.getPassword() == null
+                ? new char[0]
+                : keyStoreProperties.getPassword().toCharArray();
+
+        try (InputStream inputStream = keyStoreProperties.getLocation().getInputStream()) {
+            KeyStore keyStore = KeyStore.getInstance(keyStoreProperties.getType());
+            keyStore.load(inputStream, password);
+
+            return JWKSet.load(keyStore, alias -> password).getKeys().stream()
+                    .map(JwtKeys::withAlgorithm)
+                    .toList();
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to load the jwt key store", e);
+        }
+    }
+
+    private static JWK generate(SignatureAlgorithm algorithm) {
+        JWSAlgorithm jwsAlgorithm = JWSAlgorithm.parse(algorithm.getName());
+        String keyId = UUID.randomUUID().toString();
+
+        try {
+            if (JWSAlgorithm.Family.EC.contains(jwsAlgorithm)) {
+                return new ECKeyGenerator(Curve.forJWSAlgorithm(jwsAlgorithm).iterator().next())
+                        .keyID(keyId)
+                        .keyUse(KeyUse.SIGNATURE)
+                        .algorithm(jwsAlgorithm)
+                        .generate();
+            }
+
+            return new RSAKeyGenerator(RSAKeyGenerator.MIN_KEY_SIZE_BITS)
+                    .keyID(keyId)
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(jwsAlgorithm)
+                    .generate();
+        } catch (JOSEException je) {
+            throw new IllegalStateException("Failed to generate a jwt key for " + algorithm.getName(), je);
+        }
+    }
+
+    private static JWK toJwk(String keyId, PublicKey publicKey, PrivateKey privateKey) {
+        if (publicKey instanceof RSAPublicKey rsaPublicKey) {
+            RSAKey.Builder builder = new RSAKey.Builder(rsaPublicKey);
+            if (privateKey != null) {
+                builder.privateKey((RSAPrivateKey) privateKey);
+            }
+
+            return withAlgorithm(builder.keyID(keyId).build());
+        }
+
+        ECPublicKey ecPublicKey = (ECPublicKey) publicKey;
+        ECKey.Builder builder = new ECKey.Builder(Curve.forECParameterSpec(ecPublicKey.getParams()), ecPublicKey);
+        if (privateKey != null) {
+            builder.privateKey((ECPrivateKey) privateKey);
+        }
+
+        return withAlgorithm(builder.keyID(keyId).build());
+    }
+
+    /*
+        The key stores do not record the algorithm of a key, so it is derived from the type of the key, and for EC
+        keys from the curve.
+     */
+    private static JWK withAlgorithm(JWK key) {
+        if (key instanceof RSAKey rsaKey) {
+            return new RSAKey.Builder(rsaKey)
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(JWSAlgorithm.RS256)
+                    .build();
+        }
+        if (key instanceof ECKey ecKey) {
+            return new ECKey.Builder(ecKey)
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(ecAlgorithm(ecKey.getCurve()))
+                    .build();
+        }
+
+        throw new IllegalStateException("Unsupported jwt key type of key: " + key.getKeyID());
+    }
+
+    private static JWSAlgorithm ecAlgorithm(Curve curve) {
+        if (Curve.P_256.equals(curve)) {
+            return JWSAlgorithm.ES256;
+        }
+        if (Curve.P_384.equals(curve)) {
+            return JWSAlgorithm.ES384;
+        }
+        if (Curve.P_521.equals(curve)) {
+            return JWSAlgorithm.ES512;
+        }
+
+        throw new IllegalStateException("Unsupported curve of jwt key: " + curve);
+    }
+
+    private static PublicKey publicKey(byte[] encoded) throws GeneralSecurityException {
+        for (String algorithm : KEY_ALGORITHMS) {
+            try {
+                return KeyFactory.getInstance(algorithm).generatePublic(new X509EncodedKeySpec(encoded));
+            } catch (GeneralSecurityException gse) {
+                log.debug("The public key is not an {} key", algorithm);
+            }
+        }
+
+        throw new GeneralSecurityException("The public key is neither an RSA nor an EC key");
+    }
+
+    private static byte[] decodePem(Resource resource) throws IOException {
+        String pem = resource.getContentAsString(StandardCharsets.US_ASCII);
+        String base64 = pem.lines()
+                .filter(line -> !line.startsWith("-----"))
+                .collect(Collectors.joining());
+
+        return Base64.getMimeDecoder().decode(base64);
+    }
+}
@@ -27,6 +27,11 @@ public class SecurityConfig {
         return http
                 .authorizeHttpRequests(auth -> {
                     auth.requestMatchers(HttpMethod.POST, "/api/v1/auth/**").permitAll();
+                    /*
+                        Scraped by Prometheus and probed by Kubernetes without a token. Access to them should be
+                        restricted at the network level.
+                     */
+                    auth.requestMatchers(HttpMethod.GET, "/actuator/health/**", "/actuator/prometheus").permitAll();
                     /*
                         In "/api/v1/dvds/**" => ** represents zero or more directories. In the case of the request
                         "/api/v1/dvds?title=title" we have 0 subdirectories, so it works. It doesn't mean anything
@@ -34,6 +39,7 @@ public class SecurityConfig {
                         dvds
                      */
                     auth.requestMatchers("/api/v1/dvds/**").hasAuthority("ROLE_EMPLOYEE");
+                    auth.requestMatchers("/api/v1/reactive/dvds/**").hasAuthority("ROLE_EMPLOYEE");
                 })
                 .csrf(AbstractHttpConfigurer:: disable)
                 .oauth2ResourceServer(oauth2ResourceServer -> oauth2ResourceServer.jwt()
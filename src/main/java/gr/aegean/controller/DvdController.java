@@ -2,7 +2,9 @@ package gr.aegean.controller;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,15 +14,37 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import gr.aegean.cache.DvdResponse;
+import gr.aegean.cache.DvdResponseCache;
+import gr.aegean.model.dto.dvd.DvdBatchResult;
 import gr.aegean.model.dto.dvd.DvdDTO;
+import gr.aegean.model.dto.dvd.DvdPage;
+import gr.aegean.model.dto.dvd.DvdStockRequest;
+import gr.aegean.model.dto.dvd.DvdSuggestion;
+import gr.aegean.model.dvd.DvdSearchMode;
 import gr.aegean.service.DvdService;
 import gr.aegean.model.dto.dvd.DvdUpdateRequest;
 import gr.aegean.model.dto.dvd.DvdCreateRequest;
+import gr.aegean.utility.TextNormalizer;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jakarta.servlet.http.HttpServletResponse;
 
 import jakarta.validation.Valid;
 
@@ -32,6 +56,9 @@ import lombok.RequiredArgsConstructor;
 @RequestMapping("/api/v1/dvds")
 public class DvdController {
     private final DvdService dvdService;
+    private final ObjectMapper objectMapper;
+    private final DvdResponseCache dvdResponseCache;
+    private static final int EXPORT_FLUSH_INTERVAL = 1000;
 
     @PostMapping
     public ResponseEntity<DvdDTO> createDvd(@Valid @RequestBody DvdCreateRequest createRequest,
@@ -49,21 +76,144 @@ public class DvdController {
         return new ResponseEntity<>(dvdDTO, headers, HttpStatus.CREATED);
     }
 
+    /*
+        The items are validated by the service one by one, so the response is always 200 with the result of every
+        item, unless the batch itself is empty or too large.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<DvdBatchResult>> createDvds(@RequestBody List<DvdCreateRequest> createRequests) {
+        List<DvdBatchResult> results = dvdService.createDvds(createRequests);
+
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
+    /*
+        The body is a JSON array of Dvd ids, e.g. the Dvds of a cart. A POST, since the ids of a large batch would not
+        fit in the query string. The results are in the order of the ids, an id that was not found is reported as 404
+        in its result.
+     */
+    @PostMapping("/batch-get")
+    public ResponseEntity<List<DvdBatchResult>> findDvdsByIds(@RequestBody List<String> dvdIds) {
+        List<DvdBatchResult> results = dvdService.findDvdsByIds(dvdIds);
+
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
+    /*
+        The ETag is a hash of the Dvd, which is read from the cache, so a 304 is answered without a database query and
+        without serializing the Dvd. Returning null means that checkNotModified() has already written the 304.
+        With the response cache enabled, the cached body is written to the response as is, and null means that the
+        response was written. The response is cached under the canonical form of the id, which is the form that the
+        writes invalidate, whatever the case of the id in the path. An id that is not a UUID is left to the service.
+     */
     @GetMapping("{dvdId}")
-    public ResponseEntity<DvdDTO> findDvdById(@PathVariable String dvdId) {
+    public ResponseEntity<DvdDTO> findDvdById(@PathVariable String dvdId,
+                                              WebRequest webRequest,
+                                              HttpServletResponse response) throws IOException {
+        String canonicalId = TextNormalizer.normalizeUuid(dvdId);
+        if (dvdResponseCache.isEnabled() && canonicalId != null) {
+            writeDvdResponse(
+                    dvdResponseCache.get(canonicalId, () -> dvdService.findDvdById(canonicalId)),
+                    webRequest,
+                    response);
+
+            return null;
+        }
+
         DvdDTO dvdDTO = dvdService.findDvdById(dvdId);
 
-        return new ResponseEntity<>(dvdDTO, HttpStatus.OK);
+        String eTag = eTag(dvdDTO);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(eTag);
+
+        return new ResponseEntity<>(dvdDTO, headers, HttpStatus.OK);
     }
 
     /*
-        By default, it's true, meaning it will expect the title query param
+        Without a title, the catalogue is returned one page of up to limit Dvds at a time, ordered by title, starting
+        after the continuation token of the previous page, if any. The continuation token of the next page is returned
+        in the Link header (rel="next"), so the response body remains a plain array of dvds. No Link header means that
+        this was the last page.
+        With a title, the Dvds matching it are returned, up to limit if provided. The mode of a title search is either
+        contains (default) or similar, that ranks the Dvds by similarity.
+        The ETag is the version of the catalogue, read before the Dvds, so that it is never newer than the response.
+        A request with the current version in If-None-Match is answered with 304 without querying the Dvds.
      */
     @GetMapping
-    public ResponseEntity<List<DvdDTO>> findDvds(@RequestParam(value = "title", required = false) String title) {
-        List<DvdDTO> dvdsDTO = dvdService.findDvds(title);
+    public ResponseEntity<List<DvdDTO>> findDvds(@RequestParam(value = "title", required = false) String title,
+                                                 @RequestParam(value = "mode", required = false) String mode,
+                                                 @RequestParam(value = "after", required = false) String after,
+                                                 @RequestParam(value = "limit", required = false) Integer limit,
+                                                 UriComponentsBuilder uriBuilder,
+                                                 WebRequest webRequest) {
+        DvdSearchMode searchMode = DvdSearchMode.from(mode);
+        String eTag = catalogueETag(dvdService.findCatalogueVersion());
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
+        DvdPage page = dvdService.findDvds(title, searchMode, after, limit);
+
+        HttpHeaders headers = new HttpHeaders();
+        if (eTag != null) {
+            headers.setETag(eTag);
+        }
+        if (page.next() != null) {
+            URI next = uriBuilder
+                    .path("/api/v1/dvds")
+                    .queryParamIfPresent("limit", Optional.ofNullable(limit))
+                    .queryParam("after", page.next())
+                    .build()
+                    .toUri();
+
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+
+        return new ResponseEntity<>(page.dvds(), headers, HttpStatus.OK);
+    }
+
+    /*
+        Every dvd is written as a single JSON line as soon as it is read from the database. The generator buffers the
+        output, so we flush it after the first dvd, to send the first byte right away, and then once per interval
+        instead of once per dvd.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportDvds(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        ObjectWriter writer = objectMapper
+                .writerFor(DvdDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (JsonGenerator generator = objectMapper.createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            AtomicLong written = new AtomicLong();
+
+            dvdService.exportDvds(dvdDTO -> {
+                try {
+                    writer.writeValue(generator, dvdDTO);
+                    generator.writeRaw('\n');
 
-        return new ResponseEntity<>(dvdsDTO, HttpStatus.OK);
+                    if (written.getAndIncrement() % EXPORT_FLUSH_INTERVAL == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                }
+            });
+        }
+    }
+
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<DvdSuggestion>> suggestDvds(@RequestParam(value = "prefix") String prefix,
+                                                           @RequestParam(value = "limit", required = false)
+                                                           Integer limit) {
+        List<DvdSuggestion> suggestions = dvdService.suggestDvds(prefix, limit);
+
+        return new ResponseEntity<>(suggestions, HttpStatus.OK);
     }
 
     @PutMapping("{dvdId}")
@@ -74,11 +224,68 @@ public class DvdController {
         return new ResponseEntity<>(dvdDTO, HttpStatus.OK);
     }
 
+    /*
+        The body is a JSON object, keyed by the id of every Dvd to be updated.
+     */
+    @PutMapping("/batch")
+    public ResponseEntity<List<DvdBatchResult>> updateDvds(@RequestBody Map<String, DvdUpdateRequest> updateRequests) {
+        List<DvdBatchResult> results = dvdService.updateDvds(updateRequests);
+
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
+    /*
+        The quantity of a checkout or a return is relative to the stock, unlike the quantity of an update, so
+        concurrent checkouts of the same Dvd do not overwrite each other. A checkout of more copies than there are in
+        stock is rejected with 409.
+     */
+    @PostMapping("{dvdId}/checkout")
+    public ResponseEntity<DvdDTO> checkoutDvd(@Valid @RequestBody DvdStockRequest stockRequest,
+                                              @PathVariable String dvdId) {
+        DvdDTO dvdDTO = dvdService.checkoutDvd(dvdId, stockRequest);
+
+        return new ResponseEntity<>(dvdDTO, HttpStatus.OK);
+    }
+
+    @PostMapping("{dvdId}/return")
+    public ResponseEntity<DvdDTO> returnDvd(@Valid @RequestBody DvdStockRequest stockRequest,
+                                            @PathVariable String dvdId) {
+        DvdDTO dvdDTO = dvdService.returnDvd(dvdId, stockRequest);
+
+        return new ResponseEntity<>(dvdDTO, HttpStatus.OK);
+    }
+
     @DeleteMapping("{dvdId}")
     public ResponseEntity<Void> deleteDvd(@PathVariable String dvdId) {
         dvdService.deleteDvd(dvdId);
 
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
-}
 
+    private static void writeDvdResponse(DvdResponse dvdResponse,
+                                         WebRequest webRequest,
+                                         HttpServletResponse response) throws IOException {
+        if (webRequest.checkNotModified(dvdResponse.eTag())) {
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(dvdResponse.body().length);
+        response.setHeader(HttpHeaders.ETAG, dvdResponse.eTag());
+        response.getOutputStream().write(dvdResponse.body());
+    }
+
+    private static String eTag(DvdDTO dvdDTO) {
+        String state = dvdDTO.id() + ":" + dvdDTO.title() + ":" + dvdDTO.genre() + ":" + dvdDTO.quantity();
+
+        return '"' + DigestUtils.md5DigestAsHex(state.getBytes(StandardCharsets.UTF_8)) + '"';
+    }
+
+    /*
+        Null if the version is unavailable, the response then has no ETag.
+     */
+    private static String catalogueETag(Long version) {
+        return version == null ? null : "\"catalogue-" + version + '"';
+    }
+}
@@ -0,0 +1,44 @@
+package gr.aegean.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import gr.aegean.model.dto.dvd.DvdDTO;
+import gr.aegean.service.ReactiveDvdService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * The non-blocking variant of the DVD read endpoints. Spring MVC subscribes to the returned publishers and completes
+ * the request asynchronously, so the request thread is released while the Dvds are read.
+ */
+@RestController
+@ConditionalOnProperty(prefix = "dvd.reactive", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/reactive/dvds")
+public class ReactiveDvdController {
+    private final ReactiveDvdService reactiveDvdService;
+
+    @GetMapping("{dvdId}")
+    public Mono<DvdDTO> findDvdById(@PathVariable String dvdId) {
+        return reactiveDvdService.findDvdById(dvdId);
+    }
+
+    /*
+        The Dvds are written as newline delimited JSON, one line per Dvd, and the next Dvd is only requested once the
+        previous one has been written, so a slow client slows down the query instead of filling the memory.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<DvdDTO> findDvds(@RequestParam(value = "title", required = false) String title) {
+        return reactiveDvdService.findDvds(title);
+    }
+}
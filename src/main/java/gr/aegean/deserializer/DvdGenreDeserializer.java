@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 
 import gr.aegean.model.dvd.DvdGenre;
+import gr.aegean.utility.TextNormalizer;
 
 import java.io.IOException;
 
@@ -17,11 +18,7 @@ public class DvdGenreDeserializer extends JsonDeserializer<DvdGenre>{
 
     @Override
     public DvdGenre deserialize(JsonParser parser, DeserializationContext context) throws IOException {
-        String value = parser
-                .getValueAsString()
-                .trim()
-                .replaceAll("\\s+", "_")
-                .toUpperCase();
+        String value = TextNormalizer.toEnumName(parser.getValueAsString());
 
         try {
             return DvdGenre.valueOf(value);
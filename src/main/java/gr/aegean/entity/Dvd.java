@@ -23,6 +23,18 @@ public class Dvd {
     private String title;
     private DvdGenre genre;
     private Integer quantity;
+    /*
+        Incremented by every update of the row, it is not part of the state of the Dvd.
+     */
+    @EqualsAndHashCode.Exclude
+    private Long version;
+
+    public Dvd(UUID id, String title, DvdGenre genre, Integer quantity) {
+        this.id = id;
+        this.title = title;
+        this.genre = genre;
+        this.quantity = quantity;
+    }
 
     public Dvd(String title, DvdGenre genre, Integer quantity) {
         this.title = title;
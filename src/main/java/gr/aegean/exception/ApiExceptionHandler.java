@@ -52,6 +52,16 @@ public class ApiExceptionHandler {
         return new ResponseEntity<>(apiError, HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(ResourceConflictException.class)
+    private ResponseEntity<ApiError> handleResourceConflictException(ResourceConflictException rce) {
+        ApiError apiError = new ApiError(
+                rce.getMessage(),
+                HttpStatus.CONFLICT.value()
+        );
+
+        return new ResponseEntity<>(apiError, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(ResourceNotFoundException.class)
     private ResponseEntity<ApiError> handleDVDNotFoundException(ResourceNotFoundException nfe) {
         ApiError apiError = new ApiError(
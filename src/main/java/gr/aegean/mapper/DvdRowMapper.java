@@ -20,7 +20,8 @@ public class DvdRowMapper implements RowMapper<Dvd> {
                 id,
                 resultSet.getString("title"),
                 DvdGenre.valueOf(resultSet.getString("genre")),
-                resultSet.getInt("quantity")
+                resultSet.getInt("quantity"),
+                resultSet.getLong("version")
         );
     }
 }
@@ -0,0 +1,17 @@
+package gr.aegean.model.dto.dvd;
+
+
+/**
+ * The outcome of a single item of a batch request. The index is the position of the item in the request, dvd is set
+ * when the item succeeded and message when it failed.
+ */
+public record DvdBatchResult(int index, Integer statusCode, DvdDTO dvd, String message) {
+
+    public static DvdBatchResult success(int index, int statusCode, DvdDTO dvd) {
+        return new DvdBatchResult(index, statusCode, dvd, null);
+    }
+
+    public static DvdBatchResult failure(int index, int statusCode, String message) {
+        return new DvdBatchResult(index, statusCode, null, message);
+    }
+}
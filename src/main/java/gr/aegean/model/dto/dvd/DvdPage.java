@@ -0,0 +1,8 @@
+package gr.aegean.model.dto.dvd;
+
+import java.util.List;
+
+/*
+    next is the continuation token of the following page, or null when this is the last page
+ */
+public record DvdPage(List<DvdDTO> dvds, String next) {}
@@ -0,0 +1,11 @@
+package gr.aegean.model.dto.dvd;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+
+public record DvdStockRequest(
+        @NotNull(message = "The quantity is required")
+        @Positive(message = "The quantity must be a positive number")
+        Integer quantity) {
+}
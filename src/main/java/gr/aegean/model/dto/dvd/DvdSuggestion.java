@@ -0,0 +1,6 @@
+package gr.aegean.model.dto.dvd;
+
+import java.util.UUID;
+
+
+public record DvdSuggestion(UUID id, String title) {}
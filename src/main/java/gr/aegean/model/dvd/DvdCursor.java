@@ -0,0 +1,45 @@
+package gr.aegean.model.dvd;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+import gr.aegean.entity.Dvd;
+
+/**
+ * Keyset position of the last Dvd of a page. Dvds are ordered by (title, id), so the next page starts right after
+ * this pair. The cursor is exchanged with the clients as an opaque base64url encoded continuation token.
+ */
+public record DvdCursor(String title, UUID id) {
+    private static final char SEPARATOR = ':';
+
+    public static DvdCursor of(Dvd dvd) {
+        return new DvdCursor(dvd.getTitle(), dvd.getId());
+    }
+
+    public String encode() {
+        String value = id.toString() + SEPARATOR + title;
+
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The id is placed first because, unlike the title, it can never contain the separator.
+     *
+     * @throws IllegalArgumentException when the token was not produced by encode()
+     */
+    public static DvdCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separatorIndex = value.indexOf(SEPARATOR);
+
+            return new DvdCursor(
+                    value.substring(separatorIndex + 1),
+                    UUID.fromString(value.substring(0, separatorIndex)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
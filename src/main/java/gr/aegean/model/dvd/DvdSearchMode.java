@@ -0,0 +1,30 @@
+package gr.aegean.model.dvd;
+
+import java.util.Locale;
+
+
+public enum DvdSearchMode {
+    /*
+        Titles that contain the search string, ignoring case.
+     */
+    CONTAINS,
+    /*
+        Titles that contain words similar to the search string, most similar first. Tolerates typos.
+     */
+    SIMILAR;
+
+    /**
+     * @return the mode with the given name ignoring case, or CONTAINS if no name was provided.
+     */
+    public static DvdSearchMode from(String mode) {
+        if (mode == null || mode.isBlank()) {
+            return CONTAINS;
+        }
+
+        try {
+            return valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException iae) {
+            throw new IllegalArgumentException("Invalid search mode: " + mode);
+        }
+    }
+}
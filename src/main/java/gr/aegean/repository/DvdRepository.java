@@ -1,22 +1,31 @@
 package gr.aegean.repository;
 
 import java.sql.PreparedStatement;
-import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import gr.aegean.entity.Dvd;
 import gr.aegean.mapper.DvdRowMapper;
+import gr.aegean.model.dvd.DvdCursor;
+import gr.aegean.exception.DuplicateResourceException;
+import gr.aegean.exception.ResourceConflictException;
 import gr.aegean.exception.ResourceNotFoundException;
 
+import io.micrometer.core.annotation.Timed;
+
 import lombok.RequiredArgsConstructor;
 
 
@@ -24,32 +33,88 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class DvdRepository {
     private final JdbcTemplate jdbcTemplate;
+    private static final String QUERY_TIMER = "dvd.db.queries";
+    private static final int STREAM_FETCH_SIZE = 1000;
+    private static final int BATCH_SIZE = 500;
+    /*
+        The default of the version column.
+     */
+    private static final long INITIAL_VERSION = 0;
 
+    /**
+     * Inserts the Dvd, unless a Dvd with the same title exists. The unique index on the title turns the INSERT of a
+     * duplicate into a no-op that returns no row, so there is no window between a check and the insert.
+     *
+     * @throws DuplicateResourceException if a Dvd with the same title exists
+     */
+    @Timed(value = QUERY_TIMER, extraTags = {"query", "createDvd"}, histogram = true)
     public Dvd createDvd(Dvd dvd) {
-        final String sql = "INSERT INTO dvd (title, genre, quantity) VALUES (?, CAST(? AS genre), ?)";
-        KeyHolder keyHolder = new GeneratedKeyHolder();
+        final String sql = "INSERT INTO dvd (title, genre, quantity) VALUES (?, CAST(? AS genre), ?) " +
+                "ON CONFLICT (title) DO NOTHING " +
+                "RETURNING id";
 
-        int create = jdbcTemplate.update(con -> {
-            PreparedStatement preparedStatement = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            preparedStatement.setString(1, dvd.getTitle());
-            preparedStatement.setString(2, dvd.getGenre().name());
-            preparedStatement.setInt(3, dvd.getQuantity());
-
-            return preparedStatement;
-        }, keyHolder);
-
-        UUID dvdID;
-        if (create == 1) {
-            Map<String, Object> keys = keyHolder.getKeys();
-            if (keys != null && keys.containsKey("id")) {
-                dvdID = (UUID) keys.get("id");
-                dvd.setId(dvdID);
-            }
+        List<UUID> ids = jdbcTemplate.queryForList(
+                sql,
+                UUID.class,
+                dvd.getTitle(),
+                dvd.getGenre().name(),
+                dvd.getQuantity());
+        if (ids.isEmpty()) {
+            throw new DuplicateResourceException("Dvd already exists");
         }
+        dvd.setId(ids.get(0));
+        dvd.setVersion(INITIAL_VERSION);
 
         return dvd;
     }
 
+    /**
+     * Inserts the Dvds, BATCH_SIZE rows per statement, skipping the ones whose title already exists. Every statement
+     * is a single INSERT of the unnested arrays of the columns, which returns the ids of the rows it inserted. The
+     * ids are generated here instead of by the database, so that the returned ids identify the inserted Dvds.
+     *
+     * @return the Dvds that were inserted, in the order given
+     */
+    @Transactional
+    @Timed(value = QUERY_TIMER, extraTags = {"query", "createDvds"}, histogram = true)
+    public List<Dvd> createDvds(List<Dvd> dvds) {
+        final String sql = "INSERT INTO dvd (id, title, genre, quantity) " +
+                "SELECT * FROM unnest(?, ?, CAST(? AS genre[]), ?) " +
+                "ON CONFLICT (title) DO NOTHING " +
+                "RETURNING id";
+        dvds.forEach(dvd -> {
+            dvd.setId(UUID.randomUUID());
+            dvd.setVersion(INITIAL_VERSION);
+        });
+
+        Set<UUID> inserted = new HashSet<>();
+        for (int from = 0; from < dvds.size(); from += BATCH_SIZE) {
+            List<Dvd> batch = dvds.subList(from, Math.min(from + BATCH_SIZE, dvds.size()));
+
+            inserted.addAll(jdbcTemplate.query(con -> {
+                PreparedStatement preparedStatement = con.prepareStatement(sql);
+                preparedStatement.setArray(1, con.createArrayOf("uuid", batch.stream()
+                        .map(Dvd::getId)
+                        .toArray()));
+                preparedStatement.setArray(2, con.createArrayOf("varchar", batch.stream()
+                        .map(Dvd::getTitle)
+                        .toArray()));
+                preparedStatement.setArray(3, con.createArrayOf("varchar", batch.stream()
+                        .map(dvd -> dvd.getGenre().name())
+                        .toArray()));
+                preparedStatement.setArray(4, con.createArrayOf("int4", batch.stream()
+                        .map(Dvd::getQuantity)
+                        .toArray()));
+
+                return preparedStatement;
+            }, (resultSet, rowNum) -> resultSet.getObject("id", UUID.class)));
+        }
+
+        return dvds.stream()
+                .filter(dvd -> inserted.contains(dvd.getId()))
+                .toList();
+    }
+
     /*
         queryForObject() will throw EmptyResultDataAccessException when the query is expected to return a single row,
         but no rows are returned and IncorrectResultSizeDataAccessException when more than one row is returned. It will
@@ -58,8 +123,9 @@ public class DvdRepository {
         EmptyResultDataAccessException extends IncorrectResultSizeDataAccessException so by catching the parent class
         we deal with both cases
      */
+    @Timed(value = QUERY_TIMER, extraTags = {"query", "findDvdById"}, histogram = true)
     public Optional<Dvd> findDvdByID(String dvdID) {
-        final String sql = "SELECT id, title, genre, quantity FROM dvd WHERE id = CAST(? AS uuid)";
+        final String sql = "SELECT id, title, genre, quantity, version FROM dvd WHERE id = CAST(? AS uuid)";
 
         try {
             Dvd dvd = jdbcTemplate.queryForObject(sql, new DvdRowMapper(), dvdID);
@@ -70,28 +136,203 @@ public class DvdRepository {
         }
     }
 
+    @Timed(value = QUERY_TIMER, extraTags = {"query", "findDvdsByIds"}, histogram = true)
+    public List<Dvd> findDvdsByIds(Collection<UUID> dvdIDs) {
+        final String sql = "SELECT id, title, genre, quantity, version FROM dvd WHERE id = ANY(?)";
+
+        return jdbcTemplate.query(con -> {
+            PreparedStatement preparedStatement = con.prepareStatement(sql);
+            preparedStatement.setArray(1, con.createArrayOf("uuid", dvdIDs.toArray()));
+
+            return preparedStatement;
+        }, new DvdRowMapper());
+    }
+
     /**
-     * Retrieves DVDs from the database whose title matches or partially matches the provided search string.
+     * Retrieves DVDs from the database whose title matches or partially matches the provided search string. The
+     * dvd_title_trgm_idx trigram index serves the ILIKE for search strings of at least 3 characters.
      */
+    @Timed(value = QUERY_TIMER, extraTags = {"query", "findDvdsByTitle"}, histogram = true)
     public List<Dvd> findDvdsByTitle(String title) {
-        final String sql = "SELECT id, title, genre, quantity FROM dvd WHERE title ILIKE ?";
+        final String sql = "SELECT id, title, genre, quantity, version FROM dvd WHERE title ILIKE ?";
         final String searchTitle = "%" + title + "%";
 
         return jdbcTemplate.query(sql, new DvdRowMapper(), searchTitle);
     }
 
-    public List<Dvd> findAllDvds() {
-        final String sql = "SELECT id, title, genre, quantity FROM dvd";
+    @Timed(value = QUERY_TIMER, extraTags = {"query", "findDvdsByTitle"}, histogram = true)
+    public List<Dvd> findDvdsByTitle(String title, int limit) {
+        final String sql = "SELECT id, title, genre, quantity, version FROM dvd " +
+                "WHERE title ILIKE ? " +
+                "ORDER BY title, id " +
+                "LIMIT ?";
+        final String searchTitle = "%" + title + "%";
+
+        return jdbcTemplate.query(sql, new DvdRowMapper(), searchTitle, limit);
+    }
+
+    /**
+     * Retrieves the DVDs whose title contains words similar to the search string, most similar first. The <% operator
+     * (word similarity above pg_trgm.word_similarity_threshold) is served by the dvd_title_trgm_idx trigram index.
+     */
+    @Timed(value = QUERY_TIMER, extraTags = {"query", "findDvdsBySimilarTitle"}, histogram = true)
+    public List<Dvd> findDvdsBySimilarTitle(String title, int limit) {
+        final String sql = "SELECT id, title, genre, quantity, version FROM dvd " +
+                "WHERE ? <% title " +
+                "ORDER BY word_similarity(?, title) DESC, title, id " +
+                "LIMIT ?";
+
+        return jdbcTemplate.query(sql, new DvdRowMapper(), title, title, limit);
+    }
+
+    /**
+     * Keyset pagination on (title, id). Backed by the dvd_title_id_idx index, so the cost of a page does not depend
+     * on how deep into the catalogue the cursor points, in contrast to OFFSET that scans every skipped row.
+     *
+     * @param after the last Dvd of the previous page, or null for the first page
+     */
+    @Timed(value = QUERY_TIMER, extraTags = {"query", "findDvds"}, histogram = true)
+    public List<Dvd> findDvds(DvdCursor after, int limit) {
+        if (after == null) {
+            final String sql = "SELECT id, title, genre, quantity, version FROM dvd ORDER BY title, id LIMIT ?";
+
+            return jdbcTemplate.query(sql, new DvdRowMapper(), limit);
+        }
+
+        final String sql = "SELECT id, title, genre, quantity, version FROM dvd " +
+                "WHERE (title, id) > (?, ?) " +
+                "ORDER BY title, id " +
+                "LIMIT ?";
+
+        return jdbcTemplate.query(sql, new DvdRowMapper(), after.title(), after.id(), limit);
+    }
+
+    /**
+     * Passes every Dvd to the consumer as soon as its row is read, instead of collecting them into a list. The
+     * PostgreSQL driver honours the fetch size only when auto-commit is off, otherwise it buffers the whole result
+     * set in memory, so this has to be called within a transaction.
+     */
+    public void streamDvds(Consumer<Dvd> consumer) {
+        final String sql = "SELECT id, title, genre, quantity, version FROM dvd";
+        DvdRowMapper rowMapper = new DvdRowMapper();
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement preparedStatement = con.prepareStatement(sql);
+            preparedStatement.setFetchSize(STREAM_FETCH_SIZE);
 
-        return jdbcTemplate.query(sql, new DvdRowMapper());
+            return preparedStatement;
+        }, (RowCallbackHandler) resultSet -> consumer.accept(rowMapper.mapRow(resultSet, resultSet.getRow())));
     }
 
+    /**
+     * Optimistic update, the row is only updated if its version is still the version that the Dvd was read with. On
+     * success, the version of the Dvd is set to the new version of the row.
+     *
+     * @throws ResourceConflictException if the row was updated or deleted since the Dvd was read
+     */
+    @Timed(value = QUERY_TIMER, extraTags = {"query", "updateDvd"}, histogram = true)
     public void updateDvd(Dvd dvd) {
-        final String sql = "UPDATE dvd SET genre = CAST(? AS genre), quantity = ? WHERE id = ?";
+        final String sql = "UPDATE dvd SET genre = CAST(? AS genre), quantity = ?, version = version + 1 " +
+                "WHERE id = ? AND version = ?";
+
+        int updated = jdbcTemplate.update(
+                sql,
+                dvd.getGenre().name(),
+                dvd.getQuantity(),
+                dvd.getId(),
+                dvd.getVersion());
+        if (updated != 1) {
+            throw new ResourceConflictException("Dvd was modified concurrently: " + dvd.getId());
+        }
+        dvd.setVersion(dvd.getVersion() + 1);
+    }
+
+    /**
+     * Same as updateDvd() for a batch of Dvds. A Dvd whose row was updated or deleted since it was read is not
+     * updated, and it is not part of the result.
+     *
+     * @return the Dvds that were updated, with their new version
+     */
+    @Transactional
+    @Timed(value = QUERY_TIMER, extraTags = {"query", "updateDvds"}, histogram = true)
+    public List<Dvd> updateDvds(List<Dvd> dvds) {
+        final String sql = "UPDATE dvd SET genre = CAST(? AS genre), quantity = ?, version = version + 1 " +
+                "WHERE id = ? AND version = ?";
+
+        int[][] counts = jdbcTemplate.batchUpdate(sql, dvds, BATCH_SIZE, (preparedStatement, dvd) -> {
+            preparedStatement.setString(1, dvd.getGenre().name());
+            preparedStatement.setInt(2, dvd.getQuantity());
+            preparedStatement.setObject(3, dvd.getId());
+            preparedStatement.setLong(4, dvd.getVersion());
+        });
+
+        List<Dvd> updated = new ArrayList<>(dvds.size());
+        for (int batch = 0; batch < counts.length; batch++) {
+            for (int i = 0; i < counts[batch].length; i++) {
+                if (counts[batch][i] == 1) {
+                    Dvd dvd = dvds.get(batch * BATCH_SIZE + i);
+                    dvd.setVersion(dvd.getVersion() + 1);
+                    updated.add(dvd);
+                }
+            }
+        }
 
-        jdbcTemplate.update(sql, dvd.getGenre().name(), dvd.getQuantity(), dvd.getId());
+        return updated;
     }
 
+    /**
+     * Takes copies of the Dvd out of stock with a single statement, so concurrent checkouts neither lose updates nor
+     * take more copies than there are. The row lock is held until the end of the transaction, so that the caller can
+     * cache the returned Dvd before a concurrent checkout of the same Dvd returns.
+     *
+     * @return the Dvd after the checkout, or an empty optional if the Dvd does not exist or there are less copies in
+     * stock than requested
+     */
+    @Timed(value = QUERY_TIMER, extraTags = {"query", "checkoutDvd"}, histogram = true)
+    public Optional<Dvd> checkoutDvd(UUID dvdId, int quantity) {
+        final String sql = "UPDATE dvd SET quantity = quantity - ?, version = version + 1 " +
+                "WHERE id = ? AND quantity >= ? " +
+                "RETURNING id, title, genre, quantity, version";
+
+        return jdbcTemplate.query(sql, new DvdRowMapper(), quantity, dvdId, quantity).stream().findFirst();
+    }
+
+    /**
+     * Puts copies of the Dvd back in stock with a single statement, see checkoutDvd().
+     *
+     * @return the Dvd after the return, or an empty optional if the Dvd does not exist
+     */
+    @Timed(value = QUERY_TIMER, extraTags = {"query", "returnDvd"}, histogram = true)
+    public Optional<Dvd> returnDvd(UUID dvdId, int quantity) {
+        final String sql = "UPDATE dvd SET quantity = quantity + ?, version = version + 1 " +
+                "WHERE id = ? " +
+                "RETURNING id, title, genre, quantity, version";
+
+        return jdbcTemplate.query(sql, new DvdRowMapper(), quantity, dvdId).stream().findFirst();
+    }
+
+    /**
+     * Sets the stock of every Dvd with a single statement, the unnested arrays of the ids and the quantities.
+     *
+     * @return the Dvds that were updated, the ones that no longer exist are skipped
+     */
+    @Timed(value = QUERY_TIMER, extraTags = {"query", "updateQuantities"}, histogram = true)
+    public List<Dvd> updateQuantities(Map<UUID, Integer> quantities) {
+        final String sql = "UPDATE dvd SET quantity = stock.quantity, version = dvd.version + 1 " +
+                "FROM unnest(?, ?) AS stock(id, quantity) " +
+                "WHERE dvd.id = stock.id " +
+                "RETURNING dvd.id, dvd.title, dvd.genre, dvd.quantity, dvd.version";
+
+        return jdbcTemplate.query(con -> {
+            PreparedStatement preparedStatement = con.prepareStatement(sql);
+            preparedStatement.setArray(1, con.createArrayOf("uuid", quantities.keySet().toArray()));
+            preparedStatement.setArray(2, con.createArrayOf("int4", quantities.values().toArray()));
+
+            return preparedStatement;
+        }, new DvdRowMapper());
+    }
+
+    @Timed(value = QUERY_TIMER, extraTags = {"query", "deleteDvd"}, histogram = true)
     public void deleteDvd(String dvdID) {
         final String sql = "DELETE FROM dvd WHERE id = CAST(? AS uuid)";
 
@@ -101,10 +342,13 @@ public class DvdRepository {
         }
     }
 
-    public boolean existsDvdWithTitle(String title) {
-        final String sql = "SELECT EXISTS (SELECT 1 FROM dvd WHERE title = ?)";
+    @Timed(value = QUERY_TIMER, extraTags = {"query", "countDvds"}, histogram = true)
+    public long countDvds() {
+        final String sql = "SELECT COUNT(*) FROM dvd";
+
+        Long count = jdbcTemplate.queryForObject(sql, Long.class);
 
-        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, title));
+        return count == null ? 0 : count;
     }
 
     public void deleteAllDvds() {
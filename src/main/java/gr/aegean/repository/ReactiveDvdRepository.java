@@ -0,0 +1,70 @@
+package gr.aegean.repository;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Readable;
+
+import java.util.UUID;
+
+import gr.aegean.entity.Dvd;
+import gr.aegean.model.dvd.DvdGenre;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+/**
+ * Non-blocking reads of the dvd table over R2DBC. The genre is cast to text, since the driver has no codec for the
+ * genre enum type.
+ * The rows of a Flux are fetched FETCH_SIZE at a time, and the next ones only once the subscriber has requested them,
+ * so a slow client holds a connection, but neither a thread nor the whole result set.
+ */
+public class ReactiveDvdRepository implements AutoCloseable {
+    private static final int FETCH_SIZE = 250;
+    private static final String SELECT_DVD = "SELECT id, title, CAST(genre AS text) AS genre, quantity, version FROM dvd";
+    private final ConnectionPool connectionPool;
+    private final DatabaseClient databaseClient;
+
+    public ReactiveDvdRepository(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+        this.databaseClient = DatabaseClient.create(connectionPool);
+    }
+
+    public Mono<Dvd> findDvdById(UUID dvdId) {
+        return databaseClient.sql(SELECT_DVD + " WHERE id = :id")
+                .bind("id", dvdId)
+                .map(ReactiveDvdRepository::toDvd)
+                .one();
+    }
+
+    public Flux<Dvd> findDvds() {
+        return databaseClient.sql(SELECT_DVD + " ORDER BY title, id")
+                .filter(statement -> statement.fetchSize(FETCH_SIZE))
+                .map(ReactiveDvdRepository::toDvd)
+                .all();
+    }
+
+    public Flux<Dvd> findDvdsByTitle(String title) {
+        return databaseClient.sql(SELECT_DVD + " WHERE title ILIKE :title ORDER BY title, id")
+                .bind("title", "%" + title + "%")
+                .filter(statement -> statement.fetchSize(FETCH_SIZE))
+                .map(ReactiveDvdRepository::toDvd)
+                .all();
+    }
+
+    @Override
+    public void close() {
+        connectionPool.dispose();
+    }
+
+    private static Dvd toDvd(Readable row) {
+        return new Dvd(
+                row.get("id", UUID.class),
+                row.get("title", String.class),
+                DvdGenre.valueOf(row.get("genre", String.class)),
+                row.get("quantity", Integer.class),
+                row.get("version", Long.class)
+        );
+    }
+}
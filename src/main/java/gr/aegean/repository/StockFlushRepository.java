@@ -0,0 +1,32 @@
+package gr.aegean.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * The id of the last entry of a stock journal that was written to the database. It is updated in the transaction that
+ * writes the entries, so an entry is applied once, even if the flush fails before the journal is trimmed.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockFlushRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Locks the offset until the end of the transaction, so that the instances flush the journal one at a time.
+     */
+    public String lockOffset(String journal) {
+        final String sql = "SELECT last_id FROM stock_flush_offset WHERE journal = ? FOR UPDATE";
+
+        return jdbcTemplate.queryForObject(sql, String.class, journal);
+    }
+
+    public void updateOffset(String journal, String lastId) {
+        final String sql = "UPDATE stock_flush_offset SET last_id = ? WHERE journal = ?";
+
+        jdbcTemplate.update(sql, lastId, journal);
+    }
+}
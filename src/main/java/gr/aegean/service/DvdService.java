@@ -1,19 +1,53 @@
 package gr.aegean.service;
 
-import gr.aegean.exception.DuplicateResourceException;
+import gr.aegean.cache.DvdCache;
+import gr.aegean.cache.DvdSearchCache;
+import gr.aegean.cache.DvdStock;
+import gr.aegean.cache.DvdTitleIndex;
+import gr.aegean.exception.ResourceConflictException;
 import gr.aegean.exception.ResourceNotFoundException;
 import gr.aegean.entity.Dvd;
+import gr.aegean.model.dto.dvd.DvdBatchResult;
 import gr.aegean.model.dto.dvd.DvdCreateRequest;
 import gr.aegean.model.dto.dvd.DvdDTO;
+import gr.aegean.model.dto.dvd.DvdPage;
+import gr.aegean.model.dto.dvd.DvdStockRequest;
+import gr.aegean.model.dto.dvd.DvdSuggestion;
+import gr.aegean.model.dvd.DvdCursor;
+import gr.aegean.model.dvd.DvdSearchMode;
 import gr.aegean.mapper.DvdDTOMapper;
 import gr.aegean.model.dto.dvd.DvdUpdateRequest;
 import gr.aegean.repository.DvdRepository;
+import gr.aegean.utility.TextNormalizer;
 
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import io.micrometer.core.annotation.Timed;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 
 import lombok.RequiredArgsConstructor;
 
@@ -25,13 +59,24 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class DvdService {
     private final DvdRepository dvdRepository;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final DvdCache dvdCache;
+    private final DvdStock dvdStock;
+    private final DvdSearchCache dvdSearchCache;
+    private final DvdTitleIndex dvdTitleIndex;
+    private final Validator validator;
     private final DvdDTOMapper dvdDTOMapper = new DvdDTOMapper();
-    private static final String CACHE_NAME = "dvds";
+    private static final String OPERATION_TIMER = "dvd.operations";
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_BATCH_SIZE = 5000;
+    private static final int DEFAULT_SUGGESTIONS = 10;
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
 
     /**
      * Creates a new DVD to the database and adds it to Redis cache.
      */
+    @Timed(value = OPERATION_TIMER, extraTags = {"operation", "create"}, histogram = true)
     public DvdDTO createDvd(DvdCreateRequest dvdCreateRequest) {
         Dvd dvd = new Dvd(
                 dvdCreateRequest.title(),
@@ -41,68 +86,480 @@ public class DvdService {
 
         validateDvd(dvd);
 
-        if (dvdRepository.existsDvdWithTitle(dvd.getTitle())) {
-            throw new DuplicateResourceException("Dvd already exists");
-        }
-
         dvd = dvdRepository.createDvd(dvd);
-        redisTemplate.opsForHash().put(CACHE_NAME, dvd.getId().toString(), dvd);
+        dvdCache.update(dvd);
+        dvdTitleIndex.add(dvd);
 
         return dvdDTOMapper.convert(dvd);
     }
 
+    /**
+     * Updates the Dvd optimistically, with the version it was read with. If the Dvd was updated concurrently, it is
+     * read again and the update is applied to its new state, so that a concurrent update of the property that was
+     * not provided is not overwritten. Redis is updated within the transaction, while the row is still locked, so
+     * that the cached Dvd can not be overwritten by the result of an earlier update. If the transaction rolls back,
+     * the Dvd is deleted from Redis again.
+     *
+     * @throws ResourceConflictException if the Dvd was updated concurrently on every attempt
+     */
+    @Transactional
+    @Timed(value = OPERATION_TIMER, extraTags = {"operation", "update"}, histogram = true)
     public DvdDTO updateDvd(String dvdId, DvdUpdateRequest updateRequest) {
         if (updateRequest.quantity() == null && updateRequest.genre() == null) {
             throw new IllegalArgumentException("Either quantity or genre must be provided");
         }
+        String id = normalizeId(dvdId);
+
+        for (int attempt = 1; ; attempt++) {
+            Dvd dvd = dvdRepository.findDvdByID(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Dvd was not found with id: " + dvdId));
+
+            updateDvdProperties(dvd, updateRequest);
+            try {
+                dvdRepository.updateDvd(dvd);
+            } catch (ResourceConflictException rce) {
+                if (attempt == MAX_UPDATE_ATTEMPTS) {
+                    throw rce;
+                }
+
+                continue;
+            }
+            dvdCache.update(dvd);
+            if (dvdStock.isEnabled() && updateRequest.quantity() != null) {
+                dvdStock.setAll(Map.of(dvd.getId(), updateRequest.quantity()));
+            }
+
+            return convertWithStock(dvd);
+        }
+    }
 
-        Dvd dvd = dvdRepository.findDvdByID(dvdId)
-                .orElseThrow(() -> new ResourceNotFoundException("Dvd was not found with id: " + dvdId));
+    /**
+     * Takes copies of the Dvd out of stock. The stock is decremented by the database, and Redis is updated with the
+     * resulting Dvd within the transaction, so concurrent checkouts of the same Dvd write Redis in the order they
+     * updated the row. When the stock is written behind, it is decremented in Redis instead, see changeStock().
+     *
+     * @throws ResourceConflictException if there are less copies in stock than requested
+     */
+    @Transactional
+    @Timed(value = OPERATION_TIMER, extraTags = {"operation", "checkout"}, histogram = true)
+    public DvdDTO checkoutDvd(String dvdId, DvdStockRequest stockRequest) {
+        String id = normalizeId(dvdId);
+        if (dvdStock.isEnabled()) {
+            return changeStock(id, -stockRequest.quantity());
+        }
 
-        updateDvdProperties(dvd, updateRequest);
-        redisTemplate.opsForHash().put(CACHE_NAME, dvdId, dvd);
+        Dvd dvd = dvdRepository.checkoutDvd(UUID.fromString(id), stockRequest.quantity())
+                .orElseThrow(() -> dvdRepository.findDvdByID(id).isPresent()
+                        ? new ResourceConflictException("Not enough copies in stock for dvd with id: " + dvdId)
+                        : new ResourceNotFoundException("Dvd was not found with id: " + dvdId));
+        dvdCache.update(dvd);
 
         return dvdDTOMapper.convert(dvd);
     }
 
     /**
-     * First checks the Redis cache for the DVD with the given ID. If it exists in the cache, returns a DvdDTO.
-     * If not, retrieves the data from the database, saves it to the Redis cache and returns a DvdDTO containing
-     * the retrieved data.
+     * Puts copies of the Dvd back in stock, see checkoutDvd().
      */
-    public DvdDTO findDvdById(String dvdId) {
-        Dvd dvd = (Dvd) redisTemplate.opsForHash().get(CACHE_NAME, dvdId);
-        if (dvd != null) {
-            return dvdDTOMapper.convert(dvd);
+    @Transactional
+    @Timed(value = OPERATION_TIMER, extraTags = {"operation", "return"}, histogram = true)
+    public DvdDTO returnDvd(String dvdId, DvdStockRequest stockRequest) {
+        String id = normalizeId(dvdId);
+        if (dvdStock.isEnabled()) {
+            return changeStock(id, stockRequest.quantity());
         }
 
-        dvd = dvdRepository.findDvdByID(dvdId)
+        Dvd dvd = dvdRepository.returnDvd(UUID.fromString(id), stockRequest.quantity())
                 .orElseThrow(() -> new ResourceNotFoundException("Dvd was not found with id: " + dvdId));
-
-        redisTemplate.opsForHash().put(CACHE_NAME, dvd.getId().toString(), dvd);
+        dvdCache.update(dvd);
 
         return dvdDTOMapper.convert(dvd);
     }
 
     /**
-     * Retrieves all DVDs from the database. If a non-null and non-empty title is provided,
-     * Dvds matching the title are returned, otherwise all Dvds are returned.
+     * Creates every valid Dvd of the batch that does not already exist. The Dvds are inserted with a statement per
+     * chunk that skips the existing titles, and cached with a single round trip to Redis. A request that fails does
+     * not affect the rest of the batch.
+     *
+     * @return the result of every request, in the order of the requests
      */
-    public List<DvdDTO> findDvds(String title) {
+    @Timed(value = OPERATION_TIMER, extraTags = {"operation", "create.batch"}, histogram = true)
+    public List<DvdBatchResult> createDvds(List<DvdCreateRequest> createRequests) {
+        validateBatchSize(createRequests.size());
+
+        DvdBatchResult[] results = new DvdBatchResult[createRequests.size()];
+        Map<Integer, Dvd> candidates = new LinkedHashMap<>();
+        Set<String> titles = new HashSet<>();
+
+        for (int i = 0; i < createRequests.size(); i++) {
+            DvdCreateRequest createRequest = createRequests.get(i);
+            String violations = findViolations(createRequest);
+            if (violations != null) {
+                results[i] = DvdBatchResult.failure(i, HttpStatus.BAD_REQUEST.value(), violations);
+                continue;
+            }
+
+            Dvd dvd = new Dvd(
+                    createRequest.title(),
+                    createRequest.genre(),
+                    createRequest.quantity()
+            );
+
+            try {
+                validateDvd(dvd);
+            } catch (IllegalArgumentException iae) {
+                results[i] = DvdBatchResult.failure(i, HttpStatus.BAD_REQUEST.value(), iae.getMessage());
+                continue;
+            }
+
+            if (!titles.add(dvd.getTitle())) {
+                results[i] = DvdBatchResult.failure(i, HttpStatus.CONFLICT.value(), "Dvd already exists");
+                continue;
+            }
+            candidates.put(i, dvd);
+        }
+
+        Set<Dvd> created = new HashSet<>();
+        if (!candidates.isEmpty()) {
+            List<Dvd> dvds = dvdRepository.createDvds(new ArrayList<>(candidates.values()));
+            dvdCache.updateAll(dvds);
+            dvds.forEach(dvdTitleIndex::add);
+            created.addAll(dvds);
+        }
+        /*
+            The candidates that were not created had a title that already existed.
+         */
+        candidates.forEach((index, dvd) -> results[index] = created.contains(dvd)
+                ? DvdBatchResult.success(index, HttpStatus.CREATED.value(), dvdDTOMapper.convert(dvd))
+                : DvdBatchResult.failure(index, HttpStatus.CONFLICT.value(), "Dvd already exists"));
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Updates every Dvd of the batch, keyed by its id. The Dvds are read with a single query, updated with batched
+     * statements and cached with a single round trip to Redis. A request that fails does not affect the rest of the
+     * batch. A Dvd that was updated concurrently, between the query and its update, is reported as a conflict.
+     *
+     * @return the result of every request, in the order of the requests
+     */
+    @Transactional
+    @Timed(value = OPERATION_TIMER, extraTags = {"operation", "update.batch"}, histogram = true)
+    public List<DvdBatchResult> updateDvds(Map<String, DvdUpdateRequest> updateRequests) {
+        validateBatchSize(updateRequests.size());
+
+        DvdBatchResult[] results = new DvdBatchResult[updateRequests.size()];
+        Map<Integer, UUID> pendingIds = new LinkedHashMap<>();
+        List<DvdUpdateRequest> requests = new ArrayList<>(updateRequests.values());
+
+        int index = 0;
+        for (Map.Entry<String, DvdUpdateRequest> entry : updateRequests.entrySet()) {
+            int i = index++;
+            DvdUpdateRequest updateRequest = entry.getValue();
+
+            String violations = findViolations(updateRequest);
+            if (violations == null && updateRequest.quantity() == null && updateRequest.genre() == null) {
+                violations = "Either quantity or genre must be provided";
+            }
+            if (violations != null) {
+                results[i] = DvdBatchResult.failure(i, HttpStatus.BAD_REQUEST.value(), violations);
+                continue;
+            }
+
+            String dvdId = TextNormalizer.normalizeUuid(entry.getKey());
+            if (dvdId == null) {
+                results[i] = DvdBatchResult.failure(
+                        i,
+                        HttpStatus.NOT_FOUND.value(),
+                        "Dvd was not found with id: " + entry.getKey());
+                continue;
+            }
+            pendingIds.put(i, UUID.fromString(dvdId));
+        }
+
+        Map<UUID, Dvd> dvds = pendingIds.isEmpty()
+                ? Map.of()
+                : dvdRepository.findDvdsByIds(new HashSet<>(pendingIds.values())).stream()
+                .collect(Collectors.toMap(Dvd::getId, Function.identity()));
+
+        Map<UUID, Dvd> updated = new LinkedHashMap<>();
+        pendingIds.forEach((i, dvdId) -> {
+            Dvd dvd = dvds.get(dvdId);
+            if (dvd == null) {
+                results[i] = DvdBatchResult.failure(
+                        i,
+                        HttpStatus.NOT_FOUND.value(),
+                        "Dvd was not found with id: " + dvdId);
+
+                return;
+            }
+
+            updateDvdProperties(dvd, requests.get(i));
+            updated.put(dvdId, dvd);
+        });
+
+        Set<UUID> written = new HashSet<>();
+        if (!updated.isEmpty()) {
+            List<Dvd> updatedDvds = dvdRepository.updateDvds(new ArrayList<>(updated.values()));
+            dvdCache.updateAll(updatedDvds);
+            updatedDvds.forEach(dvd -> written.add(dvd.getId()));
+
+            if (dvdStock.isEnabled()) {
+                Map<UUID, Integer> stocks = new LinkedHashMap<>();
+                pendingIds.forEach((i, dvdId) -> {
+                    Integer quantity = requests.get(i).quantity();
+                    if (quantity != null && written.contains(dvdId)) {
+                        stocks.put(dvdId, quantity);
+                    }
+                });
+                dvdStock.setAll(stocks);
+            }
+        }
+        pendingIds.forEach((i, dvdId) -> {
+            if (results[i] == null) {
+                Dvd dvd = updated.get(dvdId);
+                results[i] = written.contains(dvdId)
+                        ? DvdBatchResult.success(i, HttpStatus.OK.value(), dvdDTOMapper.convert(dvd))
+                        : DvdBatchResult.failure(
+                                i,
+                                HttpStatus.CONFLICT.value(),
+                                "Dvd was modified concurrently: " + dvdId);
+            }
+        });
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * First checks the cache (the in-process near cache and then Redis) for the DVD with the given ID. If it exists
+     * in the cache, returns a DvdDTO. If not, retrieves the data from the database, saves it to the cache and
+     * returns a DvdDTO containing the retrieved data. Concurrent misses of the same ID share a single database query.
+     * An ID that is not a UUID is rejected without a lookup, and an ID that was not found is cached as missing for a
+     * short time. The ID is looked up in its canonical form, see normalizeId().
+     */
+    @Timed(value = OPERATION_TIMER, extraTags = {"operation", "find"}, histogram = true)
+    public DvdDTO findDvdById(String dvdId) {
+        String id = normalizeId(dvdId);
+
+        Dvd dvd = dvdCache.get(id, () -> dvdRepository.findDvdByID(id).orElse(null));
+        if (dvd == null) {
+            throw new ResourceNotFoundException("Dvd was not found with id: " + dvdId);
+        }
+
+        return convertWithStock(dvd);
+    }
+
+    /**
+     * Same as findDvdById() for a batch of ids. The cached Dvds are read with a single round trip to Redis, and the
+     * rest with a single query, after which they are cached with a single pipeline. An id that is not a UUID, or was
+     * not found, is reported as not found and does not affect the rest of the batch.
+     *
+     * @return the result of every id, in the order of the ids
+     */
+    @Timed(value = OPERATION_TIMER, extraTags = {"operation", "find.batch"}, histogram = true)
+    public List<DvdBatchResult> findDvdsByIds(List<String> dvdIds) {
+        validateBatchSize(dvdIds.size());
+
+        List<String> canonicalIds = dvdIds.stream()
+                .map(TextNormalizer::normalizeUuid)
+                .toList();
+        List<String> validIds = canonicalIds.stream()
+                .filter(Objects::nonNull)
+                .toList();
+        Map<String, Dvd> dvds = validIds.isEmpty()
+                ? Map.of()
+                : dvdCache.getAll(validIds, misses -> dvdRepository.findDvdsByIds(misses.stream()
+                .map(UUID::fromString)
+                .toList()));
+        Map<String, Integer> stocks = findStocks(dvds.keySet());
+
+        List<DvdBatchResult> results = new ArrayList<>(dvdIds.size());
+        for (int i = 0; i < dvdIds.size(); i++) {
+            String dvdId = dvdIds.get(i);
+            Dvd dvd = canonicalIds.get(i) == null ? null : dvds.get(canonicalIds.get(i));
+            if (dvd == null) {
+                results.add(DvdBatchResult.failure(
+                        i,
+                        HttpStatus.NOT_FOUND.value(),
+                        "Dvd was not found with id: " + dvdId));
+
+                continue;
+            }
+
+            DvdDTO dvdDTO = dvdDTOMapper.convert(dvd);
+            Integer stock = stocks.get(canonicalIds.get(i));
+            results.add(DvdBatchResult.success(
+                    i,
+                    HttpStatus.OK.value(),
+                    stock == null ? dvdDTO : withQuantity(dvdDTO, stock)));
+        }
+
+        return results;
+    }
+
+    /**
+     * @return the version of the catalogue, which changes on every write of a Dvd, or null if it is unavailable.
+     */
+    public Long findCatalogueVersion() {
+        return dvdCache.catalogueVersion();
+    }
+
+    /**
+     * Retrieves DVDs from the database. If a non-null and non-empty title is provided, Dvds matching the title are
+     * returned, according to the search mode, otherwise the catalogue is returned one page at a time, ordered by
+     * title. The page contains the continuation token to be passed as the after parameter of the next request.
+     *
+     * @param mode  how the title is matched, CONTAINS if null
+     * @param after the continuation token of a previous page, or null for the first page
+     * @param limit the maximum number of Dvds of the page or of the search results, or null for the default. Searches
+     *              in CONTAINS mode return all the matching Dvds by default
+     */
+    @Timed(value = OPERATION_TIMER, extraTags = {"operation", "search"}, histogram = true)
+    public DvdPage findDvds(String title, DvdSearchMode mode, String after, Integer limit) {
         if (title != null && !title.isBlank()) {
-            return findDvdsByTitle(title);
+            return new DvdPage(findDvdsByTitle(title, mode == null ? DvdSearchMode.CONTAINS : mode, limit), null);
+        }
+
+        return findDvdPage(after, limit);
+    }
+
+    /**
+     * Streams the whole catalogue to the consumer one Dvd at a time, as the rows are read from the database, so the
+     * memory needed does not depend on the size of the catalogue.
+     */
+    @Transactional(readOnly = true)
+    @Timed(value = OPERATION_TIMER, extraTags = {"operation", "export"}, histogram = true)
+    public void exportDvds(Consumer<DvdDTO> consumer) {
+        dvdRepository.streamDvds(dvd -> consumer.accept(dvdDTOMapper.convert(dvd)));
+    }
+
+    /**
+     * Suggests the Dvds whose title starts with the prefix, ignoring case, from the in-process title index. The
+     * prefix is normalized like the titles, but a trailing space is kept, so that "lord " only matches whole words.
+     *
+     * @param limit the maximum number of suggestions, or null for the default
+     */
+    @Timed(value = OPERATION_TIMER, extraTags = {"operation", "autocomplete"}, histogram = true)
+    public List<DvdSuggestion> suggestDvds(String prefix, Integer limit) {
+        int suggestions = limit == null ? DEFAULT_SUGGESTIONS : limit;
+        if (suggestions < 1 || suggestions > MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SUGGESTIONS);
+        }
+
+        if (prefix == null || prefix.isBlank()) {
+            return Collections.emptyList();
+        }
+
+        String normalizedPrefix = TextNormalizer.sanitizeTitle(prefix);
+        if (Character.isWhitespace(prefix.charAt(prefix.length() - 1)) && !normalizedPrefix.isEmpty()) {
+            normalizedPrefix += " ";
         }
 
-        return findAllDvds();
+        return dvdTitleIndex.findByPrefix(normalizedPrefix, suggestions);
+    }
+
+    /**
+     * Loads the title index from the database when the application is ready, and then periodically, to pick up the
+     * Dvds created or deleted by the other instances.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            initialDelayString = "${dvd.autocomplete.rebuild-interval:PT10M}",
+            fixedDelayString = "${dvd.autocomplete.rebuild-interval:PT10M}")
+    @Transactional(readOnly = true)
+    public void rebuildTitleIndex() {
+        dvdTitleIndex.rebuild(dvdRepository::streamDvds);
     }
 
+    @Timed(value = OPERATION_TIMER, extraTags = {"operation", "delete"}, histogram = true)
     public void deleteDvd(String dvdID) {
-        dvdRepository.deleteDvd(dvdID);
-        redisTemplate.opsForHash().delete(CACHE_NAME, dvdID);
+        String id = normalizeId(dvdID);
+
+        dvdRepository.deleteDvd(id);
+        dvdCache.evict(id);
+        if (dvdStock.isEnabled()) {
+            dvdStock.delete(id);
+        }
+        dvdTitleIndex.remove(UUID.fromString(id));
+    }
+
+    /*
+        Write-behind checkouts and returns. The stock is changed by Redis, and written to the database by the
+        DvdStockFlusher. The Dvd is read through the cache, only its stock is loaded from the database, on its first
+        change.
+     */
+    private DvdDTO changeStock(String dvdId, int delta) {
+        Dvd dvd = dvdCache.get(dvdId, () -> dvdRepository.findDvdByID(dvdId).orElse(null));
+        if (dvd == null) {
+            throw new ResourceNotFoundException("Dvd was not found with id: " + dvdId);
+        }
+
+        Long stock = dvdStock.add(dvdId, delta, () -> dvdRepository.findDvdByID(dvdId)
+                .map(Dvd::getQuantity)
+                .orElse(null));
+        if (stock == null) {
+            throw new ResourceNotFoundException("Dvd was not found with id: " + dvdId);
+        }
+        if (stock == DvdStock.INSUFFICIENT) {
+            throw new ResourceConflictException("Not enough copies in stock for dvd with id: " + dvdId);
+        }
+
+        return withQuantity(dvdDTOMapper.convert(dvd), stock.intValue());
+    }
+
+    /*
+        When the stock is written behind, the stock of the database and of the cached Dvd lag behind the stock in
+        Redis, which is returned instead.
+     */
+    private DvdDTO convertWithStock(Dvd dvd) {
+        DvdDTO dvdDTO = dvdDTOMapper.convert(dvd);
+        if (!dvdStock.isEnabled()) {
+            return dvdDTO;
+        }
+
+        Integer stock = dvdStock.get(dvd.getId().toString());
+
+        return stock == null ? dvdDTO : withQuantity(dvdDTO, stock);
+    }
+
+    /*
+        Same as convertWithStock(), for a batch, with a single round trip to Redis.
+     */
+    private Map<String, Integer> findStocks(Collection<String> dvdIds) {
+        if (!dvdStock.isEnabled() || dvdIds.isEmpty()) {
+            return Map.of();
+        }
+
+        List<String> ids = new ArrayList<>(dvdIds);
+        List<Integer> stocks = dvdStock.getAll(ids);
+        Map<String, Integer> found = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (stocks.get(i) != null) {
+                found.put(ids.get(i), stocks.get(i));
+            }
+        }
+
+        return found;
+    }
+
+    private static DvdDTO withQuantity(DvdDTO dvdDTO, int quantity) {
+        return new DvdDTO(dvdDTO.id(), dvdDTO.title(), dvdDTO.genre(), quantity);
+    }
+
+    /*
+        The ids are normalized once, where they enter the service, so that the near cache, Redis and the negative
+        cache are keyed by the same, lower case, form of an id, whatever its case in the request.
+     */
+    private static String normalizeId(String dvdId) {
+        String id = TextNormalizer.normalizeUuid(dvdId);
+        if (id == null) {
+            throw new ResourceNotFoundException("Dvd was not found with id: " + dvdId);
+        }
+
+        return id;
     }
 
     private void validateDvd(Dvd dvd) {
-        String sanitizedTitle = sanitizeTitle(dvd.getTitle());
+        String sanitizedTitle = TextNormalizer.sanitizeTitle(dvd.getTitle());
         dvd.setTitle(sanitizedTitle);
 
         if(dvd.getTitle().isBlank()) {
@@ -110,35 +567,82 @@ public class DvdService {
         }
     }
 
-    /**
-     * We replace any characters in the title that are not alphanumeric, spaces, periods, pluses, colons, apostrophes
-     * or hyphens with an empty string. Any sequence of one or more spaces within the title is replaced with
-     * a single space. Prevents storage of unrecognizable titles (e.g., "!#$&$@") and enables consistent handling of
-     * titles irrespective of the spacing between words (e.g., "Harry Potter" and "Harry  Potter" are treated
-     * as identical).
+    /*
+        The search string is normalized like the titles, so it only contains characters that a title can contain, and
+        lower-cased, since both modes ignore case. The normalized search is also the key of the cached results.
      */
-    private String sanitizeTitle(String title) {
-        title = title.trim();
-        title = title.replaceAll("[^a-zA-Z0-9\\s+.':-]", "");
-        title = title.replaceAll("\\s+", " ");
+    private List<DvdDTO> findDvdsByTitle(String title, DvdSearchMode mode, Integer limit) {
+        if (limit != null) {
+            validateLimit(limit);
+        }
 
-        return title;
-    }
+        String search = TextNormalizer.sanitizeTitle(title).toLowerCase(Locale.ROOT);
+        if (search.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-    private List<DvdDTO> findDvdsByTitle(String title) {
-        List<Dvd> dvds = dvdRepository.findDvdsByTitle(title);
+        String key = searchCacheKey(mode, limit, search);
+        List<DvdDTO> cached = key == null ? null : dvdSearchCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<Dvd> dvds = switch (mode) {
+            case CONTAINS -> limit == null
+                    ? dvdRepository.findDvdsByTitle(search)
+                    : dvdRepository.findDvdsByTitle(search, limit);
+            case SIMILAR -> dvdRepository.findDvdsBySimilarTitle(search, limit == null ? DEFAULT_PAGE_SIZE : limit);
+        };
 
-        return dvds.stream()
+        List<DvdDTO> dvdsDTO = dvds.stream()
                 .map(dvdDTOMapper::convert)
                 .toList();
+        if (key != null) {
+            dvdSearchCache.put(key, dvdsDTO);
+        }
+
+        return dvdsDTO;
     }
 
-    private List<DvdDTO> findAllDvds() {
-        List<Dvd> dvds = dvdRepository.findAllDvds();
+    /*
+        The key starts with the version of the catalogue, so a write makes the cached results of every search stale,
+        and a cached result is never older than the version that the ETag of the response is derived from. Null if
+        the search cache is disabled or the version is unavailable.
+     */
+    private String searchCacheKey(DvdSearchMode mode, Integer limit, String search) {
+        if (!dvdSearchCache.isEnabled()) {
+            return null;
+        }
+
+        Long version = dvdCache.catalogueVersion();
+        if (version == null) {
+            return null;
+        }
+
+        return version + ":" + mode + ":" + (limit == null ? "all" : limit) + ":" + search;
+    }
+
+    /*
+        We fetch one Dvd more than requested, to find out if there is a next page without issuing another query.
+     */
+    private DvdPage findDvdPage(String after, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        validateLimit(pageSize);
+
+        DvdCursor cursor = after == null || after.isBlank() ? null : DvdCursor.decode(after);
+        List<Dvd> dvds = dvdRepository.findDvds(cursor, pageSize + 1);
+
+        String next = null;
+        if (dvds.size() > pageSize) {
+            dvds = dvds.subList(0, pageSize);
+            next = DvdCursor.of(dvds.get(pageSize - 1)).encode();
+        }
 
-        return dvds.stream()
+        List<DvdDTO> dvdsDTO = dvds.stream()
                 .map(dvdDTOMapper::convert)
                 .toList();
+
+        return new DvdPage(dvdsDTO, next);
     }
 
     private void updateDvdProperties(Dvd dvd, DvdUpdateRequest updateRequest) {
@@ -149,8 +653,38 @@ public class DvdService {
         updateDvdPropertyIfNonNull(
                 updateRequest.genre(),
                 dvd::setGenre);
+    }
+
+    private void validateLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    private void validateBatchSize(int size) {
+        if (size < 1 || size > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("The batch must contain between 1 and " + MAX_BATCH_SIZE + " Dvds");
+        }
+    }
+
+    /*
+        The items of a batch are validated one by one, instead of with @Valid, so that an invalid item is reported in
+        its result and does not reject the whole batch.
+     */
+    private String findViolations(Object request) {
+        if (request == null) {
+            return "The dvd is required";
+        }
+
+        Set<ConstraintViolation<Object>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
 
-        dvdRepository.updateDvd(dvd);
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
     }
 
     private <T> void updateDvdPropertyIfNonNull(T property, Consumer<T> updater) {
@@ -1,6 +1,7 @@
 package gr.aegean.service;
 
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.JwsHeader;
 import org.springframework.security.oauth2.jwt.JwtClaimsSet;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
@@ -19,11 +20,13 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class JwtService {
     private final JwtEncoder jwtEncoder;
+    private final JwsHeader jwsHeader;
 
     /**
      * Role - Based JwtToken
      * The claims of the JwtToken are: issuer, when it is issued at, when it expires at, subject(user's id) and
-     * a custom claim for the user's authorities.
+     * a custom claim for the user's authorities. The header names the algorithm and the id of the key that signs the
+     * token, so that every instance can pick the key to verify it with.
      */
     public String assignToken(UserPrincipal userPrincipal) {
         Instant now = Instant.now();
@@ -42,6 +45,6 @@ public class JwtService {
                 .claim("authorities", authorities)
                 .build();
 
-        return jwtEncoder.encode(JwtEncoderParameters.from(claims)).getTokenValue();
+        return jwtEncoder.encode(JwtEncoderParameters.from(jwsHeader, claims)).getTokenValue();
     }
 }
@@ -0,0 +1,99 @@
+package gr.aegean.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.UUID;
+
+import gr.aegean.cache.DvdCache;
+import gr.aegean.cache.DvdStock;
+import gr.aegean.cache.ReactiveDvdCacheStore;
+import gr.aegean.entity.Dvd;
+import gr.aegean.exception.ResourceNotFoundException;
+import gr.aegean.mapper.DvdDTOMapper;
+import gr.aegean.model.dto.dvd.DvdDTO;
+import gr.aegean.repository.ReactiveDvdRepository;
+import gr.aegean.utility.TextNormalizer;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "dvd.reactive", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReactiveDvdService {
+    private final ReactiveDvdRepository reactiveDvdRepository;
+    private final ReactiveDvdCacheStore reactiveDvdCacheStore;
+    private final DvdCache dvdCache;
+    private final DvdStock dvdStock;
+    private final DvdDTOMapper dvdDTOMapper = new DvdDTOMapper();
+
+    /**
+     * Reads the Dvd from Redis, without blocking. A Redis failure is treated as a miss, like in the blocking path. A
+     * miss is handed to the blocking DvdCache on the bounded elastic scheduler, which waits for the database read, so
+     * that it goes through the same negative cache, single flight and fill of Redis as a miss of the blocking path,
+     * and never overwrites a Dvd that was cached while it was read. When the stock is written behind, it replaces the
+     * quantity of the Dvd, like in the blocking path.
+     */
+    public Mono<DvdDTO> findDvdById(String dvdId) {
+        return Mono.defer(() -> {
+            String canonicalId = TextNormalizer.normalizeUuid(dvdId);
+            if (canonicalId == null) {
+                return Mono.error(new ResourceNotFoundException("Dvd was not found with id: " + dvdId));
+            }
+            UUID id = UUID.fromString(canonicalId);
+
+            return reactiveDvdCacheStore.get(canonicalId)
+                    .onErrorResume(RuntimeException.class, re -> {
+                        log.warn("Failed to read dvd {} from Redis, falling back to the database", dvdId, re);
+
+                        return Mono.empty();
+                    })
+                    .switchIfEmpty(Mono.fromCallable(() -> dvdCache.get(
+                                    canonicalId,
+                                    () -> reactiveDvdRepository.findDvdById(id).block()))
+                            .subscribeOn(Schedulers.boundedElastic()))
+                    .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(
+                            "Dvd was not found with id: " + dvdId)))
+                    .flatMap(this::convertWithStock);
+        });
+    }
+
+    /**
+     * Streams the Dvds matching the title, or the whole catalogue if no title is provided, ordered by title. The
+     * search string is normalized like in the blocking path, and so is the quantity when the stock is written
+     * behind.
+     */
+    public Flux<DvdDTO> findDvds(String title) {
+        if (title == null || title.isBlank()) {
+            return reactiveDvdRepository.findDvds()
+                    .concatMap(this::convertWithStock);
+        }
+
+        String search = TextNormalizer.sanitizeTitle(title).toLowerCase(Locale.ROOT);
+        if (search.isEmpty()) {
+            return Flux.empty();
+        }
+
+        return reactiveDvdRepository.findDvdsByTitle(search)
+                .concatMap(this::convertWithStock);
+    }
+
+    private Mono<DvdDTO> convertWithStock(Dvd dvd) {
+        DvdDTO dvdDTO = dvdDTOMapper.convert(dvd);
+        if (!dvdStock.isEnabled()) {
+            return Mono.just(dvdDTO);
+        }
+
+        return reactiveDvdCacheStore.stock(dvd.getId().toString())
+                .map(stock -> new DvdDTO(dvdDTO.id(), dvdDTO.title(), dvdDTO.genre(), stock))
+                .defaultIfEmpty(dvdDTO);
+    }
+}
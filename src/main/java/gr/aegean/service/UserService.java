@@ -11,6 +11,7 @@ import org.springframework.stereotype.Service;
 import gr.aegean.exception.DuplicateResourceException;
 import gr.aegean.entity.User;
 import gr.aegean.repository.UserRepository;
+import gr.aegean.utility.TextNormalizer;
 
 import lombok.RequiredArgsConstructor;
 
@@ -45,7 +46,7 @@ public class UserService {
             throw new IllegalArgumentException("Invalid firstname. Too many characters");
         }
 
-        if(!firstname.matches("^[a-zA-Z]*$")) {
+        if(!TextNormalizer.isAsciiLetters(firstname)) {
             throw new IllegalArgumentException("Invalid firstname. Name should contain only characters");
         }
 
@@ -53,7 +54,7 @@ public class UserService {
             throw new IllegalArgumentException("Invalid lastname. Too many characters");
         }
 
-        if(!lastname.matches("^[a-zA-Z]*$")) {
+        if(!TextNormalizer.isAsciiLetters(lastname)) {
             throw new IllegalArgumentException("Invalid lastname. Name should contain only characters");
         }
     }
@@ -0,0 +1,165 @@
+package gr.aegean.utility;
+
+import java.util.Locale;
+import java.util.UUID;
+
+
+/**
+ * Single pass, regex free normalization of the text of the requests. Every method reads its input once, allocates at
+ * most one buffer and returns the input itself when it is already normalized. They replace String.replaceAll() and
+ * String.matches(), that compile a Pattern and allocate intermediate strings on every call.
+ */
+public final class TextNormalizer {
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Trims the title, removes any characters that are not alphanumeric, whitespace, periods, pluses, colons,
+     * apostrophes or hyphens and replaces any sequence of whitespace characters with a single space. Prevents storage
+     * of unrecognizable titles (e.g., "!#$&$@") and enables consistent handling of titles irrespective of the spacing
+     * between words (e.g., "Harry Potter" and "Harry  Potter" are treated as identical).
+     * Same result as trim(), replaceAll("[^a-zA-Z0-9\\s+.':-]", "") and replaceAll("\\s+", " ") in that order, so
+     * whitespace separated only by removed characters is also collapsed.
+     */
+    public static String sanitizeTitle(String title) {
+        int start = trimStart(title);
+        int end = trimEnd(title, start);
+        char[] sanitized = new char[end - start];
+        int length = 0;
+        boolean modified = start != 0 || end != title.length();
+        boolean afterWhitespace = false;
+
+        for (int i = start; i < end; i++) {
+            char c = title.charAt(i);
+            if (isWhitespace(c)) {
+                if (afterWhitespace || c != ' ') {
+                    modified = true;
+                }
+                if (!afterWhitespace) {
+                    sanitized[length++] = ' ';
+                    afterWhitespace = true;
+                }
+            } else if (isTitleCharacter(c)) {
+                sanitized[length++] = c;
+                afterWhitespace = false;
+            } else {
+                modified = true;
+            }
+        }
+
+        return modified ? new String(sanitized, 0, length) : title;
+    }
+
+    /**
+     * Converts a value to the name of an enum constant, by trimming it, replacing any sequence of whitespace
+     * characters with an underscore and upper-casing it, e.g. " science  fiction" becomes "SCIENCE_FICTION".
+     */
+    public static String toEnumName(String value) {
+        int start = trimStart(value);
+        int end = trimEnd(value, start);
+        char[] name = new char[end - start];
+        int length = 0;
+        boolean modified = start != 0 || end != value.length();
+        boolean nonAscii = false;
+        boolean afterWhitespace = false;
+
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (isWhitespace(c)) {
+                modified = true;
+                if (!afterWhitespace) {
+                    name[length++] = '_';
+                    afterWhitespace = true;
+                }
+            } else {
+                char upperCase = toAsciiUpperCase(c);
+                modified |= upperCase != c;
+                nonAscii |= c >= 128;
+                name[length++] = upperCase;
+                afterWhitespace = false;
+            }
+        }
+
+        /*
+            The upper case of a non ASCII character can even be longer than the character itself ("ß" becomes "SS"),
+            so they are left to String.toUpperCase().
+         */
+        if (nonAscii) {
+            return new String(name, 0, length).toUpperCase(Locale.ROOT);
+        }
+
+        return modified ? new String(name, 0, length) : value;
+    }
+
+    /**
+     * @return true if the value contains only ASCII letters, same as value.matches("^[a-zA-Z]*$").
+     */
+    public static boolean isAsciiLetters(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!(c >= 'a' && c <= 'z') && !(c >= 'A' && c <= 'Z')) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Ids are normalized before they are used as cache keys, so that every spelling of an id shares the same entries.
+     * UUID.fromString() also accepts shorter groups, e.g. "1-1-1-1-1", so only the 36 character form is accepted.
+     *
+     * @return the canonical, lower case, form of the UUID, or null if the value is not a UUID.
+     */
+    public static String normalizeUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+
+        try {
+            return UUID.fromString(value).toString();
+        } catch (IllegalArgumentException iae) {
+            return null;
+        }
+    }
+
+    /*
+        The characters of \s without the UNICODE_CHARACTER_CLASS flag.
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isTitleCharacter(char c) {
+        return (c >= 'a' && c <= 'z')
+                || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9')
+                || c == '+' || c == '.' || c == '\'' || c == ':' || c == '-';
+    }
+
+    private static char toAsciiUpperCase(char c) {
+        return c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c;
+    }
+
+    /*
+        Same characters as String.trim(), any character up to and including the space.
+     */
+    private static int trimStart(String value) {
+        int start = 0;
+        while (start < value.length() && value.charAt(start) <= ' ') {
+            start++;
+        }
+
+        return start;
+    }
+
+    private static int trimEnd(String value, int start) {
+        int end = value.length();
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        return end;
+    }
+}
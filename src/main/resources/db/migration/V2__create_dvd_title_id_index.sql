@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS dvd_title_id_idx ON dvd (title, id);
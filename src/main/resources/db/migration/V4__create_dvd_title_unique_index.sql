@@ -0,0 +1 @@
+CREATE UNIQUE INDEX IF NOT EXISTS dvd_title_key ON dvd (title);
@@ -0,0 +1,6 @@
+CREATE TABLE IF NOT EXISTS stock_flush_offset (
+    journal VARCHAR(100) PRIMARY KEY,
+    last_id VARCHAR(50) NOT NULL
+);
+
+INSERT INTO stock_flush_offset (journal, last_id) VALUES ('dvd:stock:journal', '0-0') ON CONFLICT DO NOTHING;
@@ -0,0 +1,374 @@
+package gr.aegean.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import gr.aegean.AbstractUnitTest;
+import gr.aegean.config.DvdCacheProperties;
+import gr.aegean.entity.Dvd;
+import gr.aegean.model.dvd.DvdGenre;
+
+
+class DvdCacheTest extends AbstractUnitTest {
+    private SimpleMeterRegistry meterRegistry;
+    private DvdCache underTest;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new DvdCache(
+                new RedisHashDvdCacheStore(redisTemplate()),
+                redisTemplate(),
+                new DvdCacheProperties(),
+                meterRegistry);
+
+        redisTemplate().delete(RedisHashDvdCacheStore.CACHE_NAME);
+        redisTemplate().delete(redisTemplate().keys(DvdCache.MISSING_KEY_PREFIX + "*"));
+    }
+
+    @Test
+    void shouldServeDvdFromNearCacheAfterItWasLoadedFromRedis() {
+        //Arrange
+        Dvd expected = generateDvd();
+        redisTemplate().opsForHash().put(RedisHashDvdCacheStore.CACHE_NAME, expected.getId().toString(), expected);
+
+        //Act
+        underTest.get(expected.getId().toString());
+        redisTemplate().delete(RedisHashDvdCacheStore.CACHE_NAME);
+        Dvd actual = underTest.get(expected.getId().toString());
+
+        //Assert
+        assertThat(actual).isEqualTo(expected);
+        assertThat(meterRegistry.get("dvd.cache.gets").tags("tier", "near", "result", "hit").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldCacheDvdReturnedByLoaderOnMiss() {
+        //Arrange
+        Dvd expected = generateDvd();
+
+        //Act
+        underTest.get(expected.getId().toString(), () -> expected);
+        Dvd actual = underTest.get(expected.getId().toString(), () -> {
+            throw new IllegalStateException("Loader should not run on a hit");
+        });
+
+        //Assert
+        assertThat(actual).isEqualTo(expected);
+        assertThat(redisTemplate().opsForHash().get(RedisHashDvdCacheStore.CACHE_NAME, expected.getId().toString()))
+                .isEqualTo(expected);
+    }
+
+    @Test
+    void shouldIncrementCatalogueVersionOnEveryWrite() {
+        //Arrange
+        Dvd dvd = generateDvd();
+        redisTemplate().delete(DvdCache.CATALOGUE_VERSION_KEY);
+        long start = System.currentTimeMillis();
+        Long initial = underTest.catalogueVersion();
+
+        //Act
+        underTest.update(dvd);
+        underTest.evict(dvd.getId().toString());
+        Long actual = underTest.catalogueVersion();
+
+        //Assert
+        assertThat(initial).isGreaterThanOrEqualTo(start);
+        assertThat(actual).isEqualTo(initial + 2);
+    }
+
+    @Test
+    void shouldIncrementCatalogueVersionAndDeleteResponseOnlyOnceTheTransactionCommits() {
+        //Arrange
+        Dvd dvd = generateDvd();
+        String responseKey = DvdResponseCache.KEY_PREFIX + dvd.getId();
+        StringRedisTemplate stringRedisTemplate = new StringRedisTemplate(redisTemplate().getConnectionFactory());
+        stringRedisTemplate.opsForValue().set(responseKey, "{}");
+        TransactionTemplate transactionTemplate = new TransactionTemplate(
+                new DataSourceTransactionManager(getJdbcTemplate().getDataSource()));
+        Long initial = underTest.catalogueVersion();
+
+        //Act
+        Long beforeCommit = transactionTemplate.execute(status -> {
+            underTest.update(dvd);
+            /*
+                A read of another request, between the write and the commit.
+             */
+            assertThat(stringRedisTemplate.hasKey(responseKey)).isTrue();
+
+            return underTest.catalogueVersion();
+        });
+        Long afterCommit = underTest.catalogueVersion();
+
+        //Assert
+        assertThat(beforeCommit).isEqualTo(initial);
+        assertThat(afterCommit).isEqualTo(initial + 1);
+        assertThat(stringRedisTemplate.hasKey(responseKey)).isFalse();
+    }
+
+    @Test
+    void shouldDeleteUncommittedDvdAndIncrementCatalogueVersionWhenTheTransactionRollsBack() {
+        //Arrange
+        Dvd dvd = generateDvd();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(
+                new DataSourceTransactionManager(getJdbcTemplate().getDataSource()));
+        Long initial = underTest.catalogueVersion();
+
+        //Act
+        transactionTemplate.executeWithoutResult(status -> {
+            underTest.update(dvd);
+            status.setRollbackOnly();
+        });
+
+        //Assert
+        assertThat(underTest.catalogueVersion()).isEqualTo(initial + 1);
+        assertThat(redisTemplate().opsForHash().hasKey(RedisHashDvdCacheStore.CACHE_NAME, dvd.getId().toString()))
+                .isFalse();
+    }
+
+    @Test
+    void shouldFallBackToLoaderAndCountErrorWhenRedisFails() {
+        //Arrange
+        Dvd expected = generateDvd();
+        DvdCacheStore cacheStore = mock(DvdCacheStore.class);
+        when(cacheStore.getWithTtl(any())).thenThrow(new RedisConnectionFailureException("Connection refused"));
+        DvdCache dvdCache = new DvdCache(cacheStore, redisTemplate(), new DvdCacheProperties(), meterRegistry);
+
+        //Act
+        Dvd actual = dvdCache.get(expected.getId().toString(), () -> expected);
+
+        //Assert
+        assertThat(actual).isEqualTo(expected);
+        assertThat(meterRegistry.get("dvd.cache.errors").tags("operation", "read").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldRefreshDvdInBackgroundWhenItIsAboutToExpire() {
+        //Arrange
+        Dvd cached = generateDvd();
+        Dvd expected = new Dvd(cached.getId(), cached.getTitle(), cached.getGenre(), 1);
+        DvdCacheStore cacheStore = mock(DvdCacheStore.class);
+        when(cacheStore.getWithTtl(cached.getId().toString())).thenReturn(new CachedDvd(cached, 0));
+        DvdCacheProperties cacheProperties = new DvdCacheProperties();
+        cacheProperties.setLayout(DvdCacheLayout.KEY);
+        DvdCache dvdCache = new DvdCache(cacheStore, redisTemplate(), cacheProperties, meterRegistry);
+
+        //Act
+        Dvd actual = dvdCache.get(cached.getId().toString(), () -> expected);
+
+        //Assert
+        assertThat(actual).isEqualTo(cached);
+        verify(cacheStore, timeout(5000)).replace(cached, expected);
+        assertThat(meterRegistry.get("dvd.cache.refreshes").tags("layout", "key").counters()).hasSize(3);
+    }
+
+    @Test
+    void shouldNotOverwriteDvdUpdatedDuringTheLoadOfAMiss() {
+        //Arrange
+        Dvd loaded = generateDvd();
+        String dvdId = loaded.getId().toString();
+        Dvd updated = new Dvd(loaded.getId(), loaded.getTitle(), loaded.getGenre(), 1);
+
+        //Act
+        underTest.get(dvdId, () -> {
+            underTest.update(updated);
+
+            return loaded;
+        });
+
+        //Assert
+        assertThat(redisTemplate().opsForHash().get(RedisHashDvdCacheStore.CACHE_NAME, dvdId)).isEqualTo(updated);
+        assertThat(underTest.get(dvdId)).isEqualTo(updated);
+    }
+
+    @Test
+    void shouldNotOverwriteDvdUpdatedDuringItsRefresh() {
+        //Arrange
+        Dvd cached = generateDvd();
+        cached.setVersion(1L);
+        String dvdId = cached.getId().toString();
+        Dvd updated = new Dvd(cached.getId(), cached.getTitle(), cached.getGenre(), 1, 2L);
+        Dvd loaded = new Dvd(cached.getId(), cached.getTitle(), cached.getGenre(), 5, 1L);
+        redisTemplate().opsForHash().put(RedisHashDvdCacheStore.CACHE_NAME, dvdId, cached);
+        DvdCacheStore cacheStore = spy(new RedisHashDvdCacheStore(redisTemplate()));
+        doAnswer(invocation -> new CachedDvd(((CachedDvd) invocation.callRealMethod()).dvd(), 0))
+                .when(cacheStore).getWithTtl(dvdId);
+        DvdCache dvdCache = new DvdCache(cacheStore, redisTemplate(), new DvdCacheProperties(), meterRegistry);
+
+        //Act
+        dvdCache.get(dvdId, () -> {
+            dvdCache.update(updated);
+
+            return loaded;
+        });
+
+        //Assert
+        verify(cacheStore, timeout(5000)).replace(cached, loaded);
+        assertThat(redisTemplate().opsForHash().get(RedisHashDvdCacheStore.CACHE_NAME, dvdId)).isEqualTo(updated);
+    }
+
+    @Test
+    void shouldNotRefreshDvdThatDoesNotExpire() {
+        //Arrange
+        Dvd dvd = generateDvd();
+        underTest.put(dvd);
+        Supplier<Dvd> loader = () -> {
+            throw new AssertionError("The loader should not be called");
+        };
+
+        //Act
+        Dvd actual = underTest.get(dvd.getId().toString(), loader);
+
+        //Assert
+        assertThat(actual).isEqualTo(dvd);
+        assertThat(meterRegistry.get("dvd.cache.refreshes").tags("result", "failure").counter().count())
+                .isZero();
+    }
+
+    @Test
+    void shouldNotCallLoaderAgainForIdThatWasNotFound() {
+        //Arrange
+        String dvdId = UUID.randomUUID().toString();
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<Dvd> loader = () -> {
+            loads.incrementAndGet();
+
+            return null;
+        };
+        underTest.get(dvdId, loader);
+
+        //Act
+        Dvd actual = underTest.get(dvdId, loader);
+
+        //Assert
+        assertThat(actual).isNull();
+        assertThat(loads).hasValue(1);
+        assertThat(redisTemplate().hasKey(DvdCache.MISSING_KEY_PREFIX + dvdId)).isTrue();
+    }
+
+    @Test
+    void shouldEvictDvdFromBothTiers() {
+        //Arrange
+        Dvd dvd = generateDvd();
+        underTest.put(dvd);
+
+        //Act
+        underTest.evict(dvd.getId().toString());
+
+        //Assert
+        assertThat(underTest.get(dvd.getId().toString())).isNull();
+        assertThat(redisTemplate().opsForHash().hasKey(RedisHashDvdCacheStore.CACHE_NAME, dvd.getId().toString())).isFalse();
+    }
+
+    @Test
+    void shouldInvalidateNearCacheWhenInvalidationMessageIsReceived() {
+        //Arrange
+        Dvd dvd = generateDvd();
+        underTest.put(dvd);
+        redisTemplate().delete(RedisHashDvdCacheStore.CACHE_NAME);
+
+        //Act
+        underTest.onMessage(new DefaultMessage(
+                DvdCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                dvd.getId().toString().getBytes(StandardCharsets.UTF_8)), null);
+
+        //Assert
+        assertThat(underTest.get(dvd.getId().toString())).isNull();
+    }
+
+    @Test
+    void shouldNotPutDvdInNearCacheWhenInvalidationArrivesDuringTheRedisRead() {
+        //Arrange
+        Dvd dvd = generateDvd();
+        String dvdId = dvd.getId().toString();
+        redisTemplate().opsForHash().put(RedisHashDvdCacheStore.CACHE_NAME, dvdId, dvd);
+        AtomicReference<DvdCache> dvdCache = new AtomicReference<>();
+        DvdCacheStore cacheStore = new RedisHashDvdCacheStore(redisTemplate()) {
+            @Override
+            public CachedDvd getWithTtl(String id) {
+                CachedDvd cached = super.getWithTtl(id);
+                dvdCache.get().onMessage(new DefaultMessage(
+                        DvdCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                        id.getBytes(StandardCharsets.UTF_8)), null);
+
+                return cached;
+            }
+        };
+        dvdCache.set(new DvdCache(cacheStore, redisTemplate(), new DvdCacheProperties(), meterRegistry));
+
+        //Act
+        Dvd actual = dvdCache.get().get(dvdId);
+        redisTemplate().delete(RedisHashDvdCacheStore.CACHE_NAME);
+
+        //Assert
+        assertThat(actual).isEqualTo(dvd);
+        assertThat(dvdCache.get().get(dvdId)).isNull();
+    }
+
+    @Test
+    void shouldNotPutDvdsOfBatchInNearCacheWhenInvalidationArrivesDuringTheLoad() {
+        //Arrange
+        Dvd dvd = generateDvd();
+        String dvdId = dvd.getId().toString();
+
+        //Act
+        underTest.getAll(List.of(dvdId), misses -> {
+            underTest.onMessage(new DefaultMessage(
+                    DvdCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                    dvdId.getBytes(StandardCharsets.UTF_8)), null);
+
+            return List.of(dvd);
+        });
+        redisTemplate().delete(RedisHashDvdCacheStore.CACHE_NAME);
+
+        //Assert
+        assertThat(underTest.get(dvdId)).isNull();
+    }
+
+    @Test
+    void shouldPutDvdsOfBatchInNearCacheWhenNothingWasInvalidatedDuringTheLoad() {
+        //Arrange
+        Dvd dvd = generateDvd();
+        String dvdId = dvd.getId().toString();
+
+        //Act
+        underTest.getAll(List.of(dvdId), misses -> List.of(dvd));
+        redisTemplate().delete(RedisHashDvdCacheStore.CACHE_NAME);
+
+        //Assert
+        assertThat(underTest.get(dvdId)).isEqualTo(dvd);
+    }
+
+    private Dvd generateDvd() {
+        return new Dvd(
+                UUID.randomUUID(),
+                "Lord of the Rings: The Fellowship of the Ring",
+                DvdGenre.ADVENTURE,
+                5);
+    }
+}
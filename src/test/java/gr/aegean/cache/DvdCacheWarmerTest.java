@@ -0,0 +1,119 @@
+package gr.aegean.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import gr.aegean.AbstractUnitTest;
+import gr.aegean.config.DvdCacheProperties;
+import gr.aegean.entity.Dvd;
+import gr.aegean.model.dvd.DvdGenre;
+import gr.aegean.repository.DvdRepository;
+
+
+class DvdCacheWarmerTest extends AbstractUnitTest {
+    private static final String CACHE_NAME = "dvds";
+    private DvdRepository dvdRepository;
+    private DvdCacheProperties cacheProperties;
+    private DvdCache dvdCache;
+    private SimpleMeterRegistry meterRegistry;
+    private DvdCacheWarmer underTest;
+
+    @BeforeEach
+    void setup() {
+        JdbcTemplate jdbcTemplate = getJdbcTemplate();
+        cacheProperties = new DvdCacheProperties();
+        cacheProperties.getWarmup().setEnabled(true);
+        cacheProperties.getWarmup().setChunkSize(2);
+        cacheProperties.getWarmup().setParallelism(2);
+
+        dvdRepository = new DvdRepository(jdbcTemplate);
+        meterRegistry = new SimpleMeterRegistry();
+        dvdCache = new DvdCache(new RedisHashDvdCacheStore(redisTemplate()), redisTemplate(), cacheProperties,
+                meterRegistry);
+        underTest = new DvdCacheWarmer(
+                dvdRepository,
+                new RedisHashDvdCacheStore(redisTemplate()),
+                dvdCache,
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource()),
+                cacheProperties,
+                meterRegistry);
+
+        redisTemplate().delete(CACHE_NAME);
+        redisTemplate().delete(redisTemplate().keys(DvdCache.EVICTED_KEY_PREFIX + "*"));
+        dvdRepository.deleteAllDvds();
+    }
+
+    @Test
+    void shouldLoadEveryDvdIntoRedisInChunks() {
+        //Arrange
+        List<Dvd> dvds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            dvds.add(new Dvd("Dvd " + i, DvdGenre.ADVENTURE, 5));
+        }
+        dvdRepository.createDvds(dvds);
+
+        //Act
+        underTest.warmUp();
+
+        //Assert
+        assertThat(redisTemplate().opsForHash().size(CACHE_NAME)).isEqualTo(5);
+        assertThat(meterRegistry.get("dvd.cache.warmup.loaded").gauge().value()).isEqualTo(5);
+        assertThat(meterRegistry.get("dvd.cache.warmup.total").gauge().value()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldNotOverwriteDvdThatIsAlreadyCached() {
+        //Arrange
+        Dvd dvd = dvdRepository.createDvd(new Dvd("Lord of the Rings: The Two Towers", DvdGenre.ADVENTURE, 5));
+        Dvd updated = new Dvd(dvd.getId(), dvd.getTitle(), dvd.getGenre(), 2);
+        redisTemplate().opsForHash().put(CACHE_NAME, dvd.getId().toString(), updated);
+
+        //Act
+        underTest.warmUp();
+
+        //Assert
+        assertThat(redisTemplate().opsForHash().get(CACHE_NAME, dvd.getId().toString())).isEqualTo(updated);
+    }
+
+    @Test
+    void shouldNotCacheDvdThatWasDeletedAfterItWasRead() {
+        //Arrange
+        Dvd deleted = dvdRepository.createDvd(new Dvd("Lord of the Rings: The Two Towers", DvdGenre.ADVENTURE, 5));
+        Dvd kept = dvdRepository.createDvd(new Dvd("Lord of the Rings: The Return of the King", DvdGenre.ADVENTURE, 5));
+        JdbcTemplate jdbcTemplate = getJdbcTemplate();
+        DvdRepository deletingRepository = new DvdRepository(jdbcTemplate) {
+            @Override
+            public void streamDvds(Consumer<Dvd> consumer) {
+                List<Dvd> read = new ArrayList<>();
+                super.streamDvds(read::add);
+                dvdRepository.deleteDvd(deleted.getId().toString());
+                dvdCache.evict(deleted.getId().toString());
+                read.forEach(consumer);
+            }
+        };
+        DvdCacheWarmer warmer = new DvdCacheWarmer(
+                deletingRepository,
+                new RedisHashDvdCacheStore(redisTemplate()),
+                dvdCache,
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource()),
+                cacheProperties,
+                new SimpleMeterRegistry());
+
+        //Act
+        warmer.warmUp();
+
+        //Assert
+        assertThat(redisTemplate().opsForHash().hasKey(CACHE_NAME, deleted.getId().toString())).isFalse();
+        assertThat(redisTemplate().opsForHash().get(CACHE_NAME, kept.getId().toString())).isEqualTo(kept);
+    }
+}
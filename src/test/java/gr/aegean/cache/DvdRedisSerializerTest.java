@@ -0,0 +1,103 @@
+package gr.aegean.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import gr.aegean.entity.Dvd;
+import gr.aegean.model.dvd.DvdGenre;
+
+
+class DvdRedisSerializerTest {
+
+    @ParameterizedTest
+    @EnumSource(DvdCacheFormat.class)
+    void shouldRoundTripDvd(DvdCacheFormat format) {
+        //Arrange
+        DvdRedisSerializer underTest = new DvdRedisSerializer(format);
+        Dvd dvd = new Dvd(UUID.randomUUID(), "Le Fabuleux Destin d'Amélie Poulain", DvdGenre.COMEDY, 300, 7L);
+
+        //Act
+        Dvd actual = underTest.deserialize(underTest.serialize(dvd));
+
+        //Assert
+        assertThat(actual).isEqualTo(dvd);
+        assertThat(actual.getVersion()).isEqualTo(7L);
+    }
+
+    @Test
+    void shouldRoundTripDvdWithoutVersion() {
+        //Arrange
+        DvdRedisSerializer underTest = new DvdRedisSerializer(DvdCacheFormat.BINARY);
+        Dvd dvd = new Dvd(UUID.randomUUID(), "Up", DvdGenre.CHILDREN_FILM, 0);
+
+        //Act
+        Dvd actual = underTest.deserialize(underTest.serialize(dvd));
+
+        //Assert
+        assertThat(actual).isEqualTo(dvd);
+        assertThat(actual.getVersion()).isNull();
+    }
+
+    @Test
+    void shouldWriteBinaryDvdInFewerBytesThanJson() {
+        //Arrange
+        Dvd dvd = new Dvd(UUID.randomUUID(), "Lord of the Rings", DvdGenre.ADVENTURE, 3, 1L);
+
+        //Act
+        byte[] binary = new DvdRedisSerializer(DvdCacheFormat.BINARY).serialize(dvd);
+        byte[] json = new DvdRedisSerializer(DvdCacheFormat.JSON).serialize(dvd);
+
+        //Assert
+        assertThat(binary).hasSize(1 + 16 + 1 + 1 + 1 + 1 + 17);
+        assertThat(binary.length).isLessThan(json.length);
+    }
+
+    /*
+        Values written by the instances that still write JSON, or before the format was switched, are still read.
+     */
+    @Test
+    void shouldReadJsonDvdWhenFormatIsBinary() {
+        //Arrange
+        DvdRedisSerializer underTest = new DvdRedisSerializer(DvdCacheFormat.BINARY);
+        Dvd dvd = new Dvd(UUID.randomUUID(), "Lord of the Rings", DvdGenre.ADVENTURE, 3, 1L);
+        byte[] json = new DvdRedisSerializer(DvdCacheFormat.JSON).serialize(dvd);
+
+        //Act
+        Dvd actual = underTest.deserialize(json);
+
+        //Assert
+        assertThat(actual).isEqualTo(dvd);
+    }
+
+    @Test
+    void shouldThrowSerializationExceptionWhenFormatVersionIsUnknown() {
+        //Arrange
+        DvdRedisSerializer underTest = new DvdRedisSerializer(DvdCacheFormat.BINARY);
+        byte[] bytes = {42, 0, 0};
+
+        //Act Assert
+        assertThatThrownBy(() -> underTest.deserialize(bytes))
+                .isInstanceOf(SerializationException.class)
+                .hasMessage("Unknown format of cached dvd: 42");
+    }
+
+    @Test
+    void shouldThrowSerializationExceptionWhenBinaryDvdIsTruncated() {
+        //Arrange
+        DvdRedisSerializer underTest = new DvdRedisSerializer(DvdCacheFormat.BINARY);
+        byte[] bytes = underTest.serialize(new Dvd(UUID.randomUUID(), "Lord of the Rings", DvdGenre.ADVENTURE, 3, 1L));
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 4);
+
+        //Act Assert
+        assertThatThrownBy(() -> underTest.deserialize(truncated))
+                .isInstanceOf(SerializationException.class);
+    }
+}
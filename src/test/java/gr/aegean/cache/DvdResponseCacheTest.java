@@ -0,0 +1,129 @@
+package gr.aegean.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import gr.aegean.AbstractUnitTest;
+import gr.aegean.config.DeserializerConfig;
+import gr.aegean.config.DvdCacheProperties;
+import gr.aegean.config.DvdStockProperties;
+import gr.aegean.entity.Dvd;
+import gr.aegean.model.dto.dvd.DvdDTO;
+import gr.aegean.model.dvd.DvdGenre;
+import gr.aegean.utility.TextNormalizer;
+
+
+class DvdResponseCacheTest extends AbstractUnitTest {
+    private DvdCache dvdCache;
+    private DvdResponseCache underTest;
+
+    /*
+        The in-process tier is disabled, so that every lookup reaches Redis.
+     */
+    @BeforeEach
+    void setup() {
+        DvdCacheProperties cacheProperties = new DvdCacheProperties();
+        cacheProperties.getNear().setEnabled(false);
+        cacheProperties.getResponse().setEnabled(true);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        dvdCache = new DvdCache(
+                new RedisHashDvdCacheStore(redisTemplate()),
+                redisTemplate(),
+                cacheProperties,
+                meterRegistry);
+        underTest = new DvdResponseCache(
+                redisTemplate(),
+                dvdCache,
+                new DeserializerConfig().objectMapper(),
+                cacheProperties,
+                new DvdStockProperties(),
+                meterRegistry);
+
+        redisTemplate().delete(redisTemplate().keys(DvdResponseCache.KEY_PREFIX + "*"));
+    }
+
+    @Test
+    void shouldServeCachedResponseWithoutRunningLoader() {
+        //Arrange
+        DvdDTO dvdDTO = new DvdDTO(UUID.randomUUID(), "Up", DvdGenre.COMEDY, 2);
+        String dvdId = dvdDTO.id().toString();
+
+        //Act
+        DvdResponse expected = underTest.get(dvdId, () -> dvdDTO);
+        DvdResponse actual = underTest.get(dvdId, () -> {
+            throw new IllegalStateException("Loader should not run on a hit");
+        });
+
+        //Assert
+        assertThat(actual.body()).isEqualTo(expected.body());
+        assertThat(actual.eTag()).isEqualTo(expected.eTag());
+        assertThat(new String(actual.body(), StandardCharsets.UTF_8)).contains("\"title\":\"Up\"");
+    }
+
+    @Test
+    void shouldDeleteCachedResponseWhenDvdIsUpdated() {
+        //Arrange
+        DvdDTO dvdDTO = new DvdDTO(UUID.randomUUID(), "Up", DvdGenre.COMEDY, 2);
+        String dvdId = dvdDTO.id().toString();
+        DvdResponse previous = underTest.get(dvdId, () -> dvdDTO);
+
+        //Act
+        dvdCache.update(new Dvd(dvdDTO.id(), "Up", DvdGenre.COMEDY, 1));
+        DvdResponse actual = underTest.get(dvdId, () -> new DvdDTO(dvdDTO.id(), "Up", DvdGenre.COMEDY, 1));
+
+        //Assert
+        assertThat(actual.eTag()).isNotEqualTo(previous.eTag());
+        assertThat(new String(actual.body(), StandardCharsets.UTF_8)).contains("\"quantity\":1");
+    }
+
+    /*
+        The controller looks the response up by the canonical form of the id, the form that the writes invalidate.
+     */
+    @Test
+    void shouldNotServeStaleResponseToUpperCaseIdAfterDvdIsUpdated() {
+        //Arrange
+        DvdDTO dvdDTO = new DvdDTO(UUID.randomUUID(), "Up", DvdGenre.COMEDY, 2);
+        String dvdId = TextNormalizer.normalizeUuid(dvdDTO.id().toString().toUpperCase());
+        underTest.get(dvdId, () -> dvdDTO);
+
+        //Act
+        dvdCache.update(new Dvd(dvdDTO.id(), "Up", DvdGenre.COMEDY, 1));
+        DvdResponse actual = underTest.get(
+                TextNormalizer.normalizeUuid(dvdDTO.id().toString().toUpperCase()),
+                () -> new DvdDTO(dvdDTO.id(), "Up", DvdGenre.COMEDY, 1));
+
+        //Assert
+        assertThat(new String(actual.body(), StandardCharsets.UTF_8)).contains("\"quantity\":1");
+        assertThat(redisTemplate().hasKey(DvdResponseCache.KEY_PREFIX + dvdDTO.id().toString().toUpperCase()))
+                .isFalse();
+    }
+
+    /*
+        The loader returns the Dvd as it was before a write that completes during the load, its response is returned
+        but not cached.
+     */
+    @Test
+    void shouldNotCacheResponseOfLoadThatRacedWithWrite() {
+        //Arrange
+        DvdDTO dvdDTO = new DvdDTO(UUID.randomUUID(), "Up", DvdGenre.COMEDY, 2);
+        String dvdId = dvdDTO.id().toString();
+
+        //Act
+        underTest.get(dvdId, () -> {
+            dvdCache.update(new Dvd(dvdDTO.id(), "Up", DvdGenre.COMEDY, 1));
+
+            return dvdDTO;
+        });
+
+        //Assert
+        assertThat(redisTemplate().hasKey(DvdResponseCache.KEY_PREFIX + dvdId)).isFalse();
+    }
+}
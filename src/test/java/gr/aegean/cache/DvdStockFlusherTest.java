@@ -0,0 +1,186 @@
+package gr.aegean.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Map;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import gr.aegean.AbstractUnitTest;
+import gr.aegean.config.DvdCacheProperties;
+import gr.aegean.config.DvdStockProperties;
+import gr.aegean.entity.Dvd;
+import gr.aegean.exception.ResourceConflictException;
+import gr.aegean.model.dto.dvd.DvdDTO;
+import gr.aegean.model.dto.dvd.DvdStockRequest;
+import gr.aegean.model.dvd.DvdGenre;
+import gr.aegean.repository.DvdRepository;
+import gr.aegean.repository.StockFlushRepository;
+import gr.aegean.service.DvdService;
+
+import jakarta.validation.Validation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+
+class DvdStockFlusherTest extends AbstractUnitTest {
+    private static final String CACHE_NAME = "dvds";
+    private JdbcTemplate jdbcTemplate;
+    private DvdRepository dvdRepository;
+    private DvdCache dvdCache;
+    private DvdStock dvdStock;
+    private DvdService dvdService;
+    private SimpleMeterRegistry meterRegistry;
+    private DvdStockFlusher underTest;
+
+    @BeforeEach
+    void setup() {
+        DvdStockProperties stockProperties = new DvdStockProperties();
+        stockProperties.getWriteBehind().setEnabled(true);
+        stockProperties.getWriteBehind().setBatchSize(2);
+        StringRedisTemplate stringRedisTemplate = new StringRedisTemplate(redisTemplate().getConnectionFactory());
+        dvdCache = new DvdCache(
+                new RedisHashDvdCacheStore(redisTemplate()),
+                redisTemplate(),
+                new DvdCacheProperties(),
+                new SimpleMeterRegistry());
+
+        jdbcTemplate = getJdbcTemplate();
+        dvdRepository = new DvdRepository(jdbcTemplate);
+        dvdStock = new DvdStock(stringRedisTemplate, stockProperties);
+        dvdService = new DvdService(
+                dvdRepository,
+                dvdCache,
+                dvdStock,
+                new DvdSearchCache(stringRedisTemplate, new ObjectMapper(), new DvdCacheProperties()),
+                new DvdTitleIndex(),
+                Validation.buildDefaultValidatorFactory().getValidator());
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new DvdStockFlusher(
+                dvdStock,
+                dvdRepository,
+                new StockFlushRepository(jdbcTemplate),
+                dvdCache,
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource()),
+                stockProperties,
+                meterRegistry);
+
+        redisTemplate().delete(List.of(CACHE_NAME, DvdStock.STOCK_KEY, DvdStock.JOURNAL_KEY));
+        jdbcTemplate.update("UPDATE stock_flush_offset SET last_id = '0-0'");
+        dvdRepository.deleteAllDvds();
+    }
+
+    @Test
+    void shouldChangeStockInRedisWithoutWritingToTheDatabase() {
+        //Arrange
+        Dvd dvd = dvdRepository.createDvd(new Dvd("Lord of the Rings: The Two Towers", DvdGenre.ADVENTURE, 5));
+        String id = dvd.getId().toString();
+
+        //Act
+        DvdDTO actual = dvdService.checkoutDvd(id, new DvdStockRequest(2));
+
+        //Assert
+        assertThat(actual.quantity()).isEqualTo(3);
+        assertThat(dvdStock.get(id)).isEqualTo(3);
+        assertThat(dvdStock.journalSize()).isEqualTo(1);
+        assertThat(dvdRepository.findDvdByID(id)).hasValueSatisfying(
+                flushed -> assertThat(flushed.getQuantity()).isEqualTo(5));
+        assertThat(dvdService.findDvdById(id).quantity()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldNotChangeStockInRedisWhenThereAreNotEnoughCopies() {
+        //Arrange
+        Dvd dvd = dvdRepository.createDvd(new Dvd("Lord of the Rings: The Two Towers", DvdGenre.ADVENTURE, 5));
+        String id = dvd.getId().toString();
+        dvdService.checkoutDvd(id, new DvdStockRequest(4));
+
+        //Act Assert
+        assertThatThrownBy(() -> dvdService.checkoutDvd(id, new DvdStockRequest(2)))
+                .isInstanceOf(ResourceConflictException.class)
+                .hasMessage("Not enough copies in stock for dvd with id: " + id);
+        assertThat(dvdStock.get(id)).isEqualTo(1);
+        assertThat(dvdStock.journalSize()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldFlushTheLastStockOfEveryDvdAndTrimTheJournal() {
+        //Arrange
+        Dvd dvd = dvdRepository.createDvd(new Dvd("Lord of the Rings: The Two Towers", DvdGenre.ADVENTURE, 5));
+        Dvd dvd1 = dvdRepository.createDvd(new Dvd("Lord of the Rings: The Return of the King", DvdGenre.ADVENTURE, 5));
+        dvdService.checkoutDvd(dvd.getId().toString(), new DvdStockRequest(1));
+        dvdService.checkoutDvd(dvd.getId().toString(), new DvdStockRequest(1));
+        dvdService.returnDvd(dvd.getId().toString(), new DvdStockRequest(3));
+        dvdService.checkoutDvd(dvd1.getId().toString(), new DvdStockRequest(5));
+
+        //Act
+        underTest.flush();
+        dvd.setQuantity(6);
+        dvd1.setQuantity(0);
+
+        //Assert
+        assertThat(dvdRepository.findDvdByID(dvd.getId().toString())).contains(dvd);
+        assertThat(dvdRepository.findDvdByID(dvd1.getId().toString())).contains(dvd1);
+        assertThat(redisTemplate().opsForHash().get(CACHE_NAME, dvd.getId().toString())).isEqualTo(dvd);
+        assertThat(dvdStock.journalSize()).isZero();
+        assertThat(meterRegistry.get("dvd.stock.flushed").counter().count()).isEqualTo(4);
+        assertThat(meterRegistry.get("dvd.stock.flush.lag").timeGauge().value()).isZero();
+    }
+
+    @Test
+    void shouldNotApplyEntriesUpToTheOffsetAgain() {
+        //Arrange
+        Dvd dvd = dvdRepository.createDvd(new Dvd("Lord of the Rings: The Two Towers", DvdGenre.ADVENTURE, 5));
+        dvdStock.setAll(Map.of(dvd.getId(), 2));
+        String applied = dvdStock.readJournal(1).get(0).getId().getValue();
+        /*
+            As if an instance crashed after the entry was applied, before the journal was trimmed.
+         */
+        jdbcTemplate.update("UPDATE stock_flush_offset SET last_id = ?", applied);
+
+        //Act
+        underTest.flush();
+
+        //Assert
+        assertThat(dvdRepository.findDvdByID(dvd.getId().toString())).hasValueSatisfying(
+                actual -> assertThat(actual.getQuantity()).isEqualTo(5));
+        assertThat(dvdStock.journalSize()).isZero();
+        assertThat(meterRegistry.get("dvd.stock.flushed").counter().count()).isZero();
+    }
+
+    @Test
+    void shouldDrainTheJournalAndDeleteTheStockWhenWriteBehindIsDisabled() {
+        //Arrange
+        Dvd dvd = dvdRepository.createDvd(new Dvd("Lord of the Rings: The Two Towers", DvdGenre.ADVENTURE, 5));
+        dvdService.checkoutDvd(dvd.getId().toString(), new DvdStockRequest(2));
+        DvdStockProperties stockProperties = new DvdStockProperties();
+        DvdStock disabledStock = new DvdStock(
+                new StringRedisTemplate(redisTemplate().getConnectionFactory()),
+                stockProperties);
+        DvdStockFlusher flusher = new DvdStockFlusher(
+                disabledStock,
+                dvdRepository,
+                new StockFlushRepository(jdbcTemplate),
+                dvdCache,
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource()),
+                stockProperties,
+                new SimpleMeterRegistry());
+
+        //Act
+        flusher.run(null);
+
+        //Assert
+        assertThat(dvdRepository.findDvdByID(dvd.getId().toString())).hasValueSatisfying(
+                actual -> assertThat(actual.getQuantity()).isEqualTo(3));
+        assertThat(dvdStock.journalSize()).isZero();
+        assertThat(redisTemplate().hasKey(DvdStock.STOCK_KEY)).isFalse();
+    }
+}
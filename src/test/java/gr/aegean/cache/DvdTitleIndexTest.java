@@ -0,0 +1,139 @@
+package gr.aegean.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import gr.aegean.entity.Dvd;
+import gr.aegean.model.dto.dvd.DvdSuggestion;
+import gr.aegean.model.dvd.DvdGenre;
+
+
+class DvdTitleIndexTest {
+    private DvdTitleIndex underTest;
+
+    @BeforeEach
+    void setup() {
+        underTest = new DvdTitleIndex();
+    }
+
+    @Test
+    void shouldFindTitlesStartingWithPrefixIgnoringCaseInTitleOrder() {
+        //Arrange
+        Dvd twoTowers = generateDvd("Lord of the Rings: The Two Towers");
+        Dvd fellowship = generateDvd("Lord of the Rings: The Fellowship of the Ring");
+        underTest.add(twoTowers);
+        underTest.add(fellowship);
+        underTest.add(generateDvd("Interstellar"));
+
+        //Act
+        List<DvdSuggestion> actual = underTest.findByPrefix("LORD OF", 10);
+
+        //Assert
+        assertThat(actual).containsExactly(
+                new DvdSuggestion(fellowship.getId(), fellowship.getTitle()),
+                new DvdSuggestion(twoTowers.getId(), twoTowers.getTitle()));
+    }
+
+    @Test
+    void shouldReturnAtMostLimitSuggestions() {
+        //Arrange
+        underTest.add(generateDvd("Lord of the Rings: The Two Towers"));
+        underTest.add(generateDvd("Lord of the Rings: The Fellowship of the Ring"));
+
+        //Act
+        List<DvdSuggestion> actual = underTest.findByPrefix("lord", 1);
+
+        //Assert
+        assertThat(actual).extracting(DvdSuggestion::title)
+                .containsExactly("Lord of the Rings: The Fellowship of the Ring");
+    }
+
+    @Test
+    void shouldNotSuggestRemovedDvd() {
+        //Arrange
+        Dvd dvd = generateDvd("Interstellar");
+        underTest.add(dvd);
+
+        //Act
+        underTest.remove(dvd.getId());
+
+        //Assert
+        assertThat(underTest.findByPrefix("inter", 10)).isEmpty();
+        assertThat(underTest.size()).isZero();
+    }
+
+    @Test
+    void shouldReplaceIndexOnRebuildAndKeepWritesThatHappenedMeanwhile() {
+        //Arrange
+        Dvd stale = generateDvd("Interstellar");
+        Dvd loaded = generateDvd("Inception");
+        Dvd created = generateDvd("Inside Out");
+        underTest.add(stale);
+
+        //Act
+        underTest.rebuild(consumer -> {
+            underTest.add(created);
+            underTest.remove(loaded.getId());
+            consumer.accept(loaded);
+        });
+
+        //Assert
+        assertThat(underTest.findByPrefix("in", 10)).extracting(DvdSuggestion::title)
+                .containsExactly("Inside Out");
+    }
+
+    /*
+        The Dvd is removed by another thread while the source passes it to the index, so the removal may run between
+        the check of the removed ids and the add, unless the load holds the lock of the writes.
+     */
+    @Test
+    void shouldNotSuggestDvdRemovedConcurrentlyWithItsLoadDuringRebuild() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            //Arrange
+            Dvd dvd = generateDvd("Interstellar");
+            underTest.add(dvd);
+            CountDownLatch start = new CountDownLatch(1);
+
+            //Act
+            underTest.rebuild(consumer -> {
+                Thread remover = new Thread(() -> {
+                    awaitUninterruptibly(start);
+                    underTest.remove(dvd.getId());
+                });
+                remover.start();
+                start.countDown();
+                consumer.accept(dvd);
+                joinUninterruptibly(remover);
+            });
+
+            //Assert
+            assertThat(underTest.findByPrefix("inter", 10)).isEmpty();
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void joinUninterruptibly(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Dvd generateDvd(String title) {
+        return new Dvd(UUID.randomUUID(), title, DvdGenre.ADVENTURE, 5);
+    }
+}
@@ -0,0 +1,136 @@
+package gr.aegean.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import gr.aegean.AbstractUnitTest;
+import gr.aegean.entity.Dvd;
+import gr.aegean.model.dvd.DvdGenre;
+
+
+class RedisKeyDvdCacheStoreTest extends AbstractUnitTest {
+    private final RedisCacheConfiguration cacheConfiguration = RedisCacheConfiguration
+            .defaultCacheConfig()
+            .entryTtl(Duration.ofMinutes(10))
+            .computePrefixWith(cacheName -> cacheName + ":");
+    private RedisKeyDvdCacheStore underTest;
+
+    @BeforeEach
+    void setup() {
+        underTest = new RedisKeyDvdCacheStore(redisTemplate(), cacheConfiguration, Duration.ofMinutes(1), 2);
+
+        redisTemplate().delete(redisTemplate().keys("dvd:*"));
+    }
+
+    @Test
+    void shouldStoreEveryDvdUnderItsOwnKeyWithTtl() {
+        //Arrange
+        Dvd expected = generateDvd();
+
+        //Act
+        underTest.put(expected);
+
+        //Assert
+        String key = "dvd:" + expected.getId();
+        assertThat(underTest.get(expected.getId().toString())).isEqualTo(expected);
+        assertThat(redisTemplate().getExpire(key, TimeUnit.SECONDS)).isBetween(1L, 660L);
+    }
+
+    @Test
+    void shouldReturnDvdWithRemainingTtl() {
+        //Arrange
+        Dvd expected = generateDvd();
+        underTest.put(expected);
+
+        //Act
+        CachedDvd actual = underTest.getWithTtl(expected.getId().toString());
+
+        //Assert
+        assertThat(actual.dvd()).isEqualTo(expected);
+        assertThat(actual.ttlMillis()).isBetween(1L, Duration.ofMinutes(11).toMillis());
+    }
+
+    @Test
+    void shouldEvictOldestDvdWhenMaxEntriesIsExceeded() throws InterruptedException {
+        //Arrange
+        Dvd oldest = generateDvd();
+        underTest.put(oldest);
+        Thread.sleep(5);
+        underTest.put(generateDvd());
+        Thread.sleep(5);
+
+        //Act
+        underTest.put(generateDvd());
+
+        //Assert
+        assertThat(underTest.get(oldest.getId().toString())).isNull();
+        assertThat(redisTemplate().opsForZSet().size("dvd:index")).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotOverwriteCachedDvdWhenPuttingIfAbsent() {
+        //Arrange
+        Dvd cached = generateDvd();
+        Dvd stale = new Dvd(cached.getId(), cached.getTitle(), cached.getGenre(), 1);
+        Dvd absent = generateDvd();
+        underTest.put(cached);
+
+        //Act
+        underTest.putAllIfAbsent(List.of(stale, absent));
+
+        //Assert
+        assertThat(underTest.get(cached.getId().toString())).isEqualTo(cached);
+        assertThat(underTest.get(absent.getId().toString())).isEqualTo(absent);
+    }
+
+    @Test
+    void shouldReplaceDvdOnlyIfItIsStillTheExpectedOne() {
+        //Arrange
+        Dvd expected = new Dvd(UUID.randomUUID(), "Lord of the Rings: The Fellowship of the Ring", DvdGenre.ADVENTURE, 5, 1L);
+        Dvd updated = new Dvd(expected.getId(), expected.getTitle(), expected.getGenre(), 4, 2L);
+        Dvd refreshed = new Dvd(expected.getId(), expected.getTitle(), expected.getGenre(), 5, 1L);
+        Dvd absent = generateDvd();
+        underTest.put(expected);
+
+        //Act
+        boolean first = underTest.replace(expected, updated);
+        boolean second = underTest.replace(expected, refreshed);
+        boolean third = underTest.replace(absent, absent);
+
+        //Assert
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        assertThat(third).isFalse();
+        assertThat(underTest.get(expected.getId().toString()).getVersion()).isEqualTo(2L);
+        assertThat(underTest.get(absent.getId().toString())).isNull();
+    }
+
+    @Test
+    void shouldDeleteDvd() {
+        //Arrange
+        Dvd dvd = generateDvd();
+        underTest.put(dvd);
+
+        //Act
+        underTest.delete(dvd.getId().toString());
+
+        //Assert
+        assertThat(underTest.get(dvd.getId().toString())).isNull();
+    }
+
+    private Dvd generateDvd() {
+        return new Dvd(
+                UUID.randomUUID(),
+                "Lord of the Rings: The Fellowship of the Ring",
+                DvdGenre.ADVENTURE,
+                5);
+    }
+}
@@ -0,0 +1,104 @@
+package gr.aegean.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import gr.aegean.exception.ResourceNotFoundException;
+
+
+class SingleFlightTest {
+    private Counter coalescedWaiters;
+    private SingleFlight<String, String> underTest;
+
+    @BeforeEach
+    void setup() {
+        coalescedWaiters = new SimpleMeterRegistry().counter("coalesced");
+        underTest = new SingleFlight<>(coalescedWaiters);
+    }
+
+    @Test
+    void shouldRunLoaderOnceForConcurrentCallersOfTheSameKey() throws Exception {
+        //Arrange
+        int waiters = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(waiters + 1);
+        List<Future<String>> results = new ArrayList<>();
+
+        //Act
+        results.add(executor.submit(() -> underTest.execute("key", () -> {
+            loads.incrementAndGet();
+            awaitQuietly(release);
+
+            return "value";
+        })));
+        while (loads.get() == 0) {
+            Thread.onSpinWait();
+        }
+        for (int i = 0; i < waiters; i++) {
+            results.add(executor.submit(() -> underTest.execute("key", () -> {
+                loads.incrementAndGet();
+
+                return "other value";
+            })));
+        }
+        while (coalescedWaiters.count() < waiters) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        //Assert
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        executor.shutdown();
+    }
+
+    @Test
+    void shouldRethrowExceptionOfLoader() {
+        //Act Assert
+        assertThatThrownBy(() -> underTest.execute("key", () -> {
+            throw new ResourceNotFoundException("Dvd was not found with id: key");
+        }))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Dvd was not found with id: key");
+    }
+
+    @Test
+    void shouldRunLoaderAgainOnceThePreviousLoadCompleted() {
+        //Arrange
+        AtomicInteger loads = new AtomicInteger();
+
+        //Act
+        underTest.execute("key", () -> "value" + loads.incrementAndGet());
+        String actual = underTest.execute("key", () -> "value" + loads.incrementAndGet());
+
+        //Assert
+        assertThat(actual).isEqualTo("value2");
+        assertThat(coalescedWaiters.count()).isZero();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package gr.aegean.config.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+
+@ExtendWith(MockitoExtension.class)
+class CachingJwtDecoderTest {
+    @Mock
+    private JwtDecoder delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private CachingJwtDecoder underTest;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new CachingJwtDecoder(delegate, 100, meterRegistry);
+    }
+
+    @Test
+    void shouldVerifyTokenOnceWhenItIsDecodedAgain() {
+        //Arrange
+        Jwt expected = jwt("token", Instant.now().plus(2, ChronoUnit.HOURS));
+        when(delegate.decode("token")).thenReturn(expected);
+
+        //Act
+        underTest.decode("token");
+        Jwt actual = underTest.decode("token");
+
+        //Assert
+        assertThat(actual).isSameAs(expected);
+        verify(delegate, times(1)).decode("token");
+        assertThat(meterRegistry.get("jwt.cache.gets").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("jwt.verifications").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldVerifyTokenAgainWhenItExpired() {
+        //Arrange
+        Jwt expired = jwt("token", Instant.now().minusSeconds(1));
+        when(delegate.decode("token")).thenReturn(expired);
+
+        //Act
+        underTest.decode("token");
+        underTest.decode("token");
+
+        //Assert
+        verify(delegate, times(2)).decode("token");
+    }
+
+    @Test
+    void shouldNotCacheTokenThatFailedToDecode() {
+        //Arrange
+        when(delegate.decode("token")).thenThrow(new BadJwtException("Invalid signature"));
+
+        //Act Assert
+        assertThatThrownBy(() -> underTest.decode("token")).isInstanceOf(BadJwtException.class);
+        assertThatThrownBy(() -> underTest.decode("token")).isInstanceOf(BadJwtException.class);
+        verify(delegate, times(2)).decode("token");
+    }
+
+    private static Jwt jwt(String token, Instant expiresAt) {
+        return Jwt.withTokenValue(token)
+                .header("alg", "RS256")
+                .subject("1")
+                .issuedAt(expiresAt.minus(2, ChronoUnit.HOURS))
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
@@ -0,0 +1,132 @@
+package gr.aegean.config.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.List;
+
+import gr.aegean.config.JwtProperties;
+
+
+class JwtConfigTest {
+    @TempDir
+    private Path keyDir;
+
+    @Test
+    void shouldDecodeTokenSignedWithGeneratedKey() {
+        //Arrange
+        JwtConfig underTest = jwtConfig(new JwtProperties());
+
+        //Act
+        Jwt actual = underTest.jwtDecoder().decode(token(underTest));
+
+        //Assert
+        assertThat(actual.getSubject()).isEqualTo("1");
+        assertThat(actual.getHeaders()).containsEntry("alg", "ES256");
+        assertThat(actual.getHeaders()).containsKey("kid");
+    }
+
+    /*
+        An instance that was already switched to the new key accepts the tokens of an instance that still signs with
+        the previous one, and the other way around.
+     */
+    @Test
+    void shouldDecodeTokenSignedWithAnyConfiguredKey() throws Exception {
+        //Arrange
+        List<JwtProperties.Key> keys = List.of(
+                pemKey("previous", "RSA", null),
+                pemKey("current", "EC", new ECGenParameterSpec("secp256r1")));
+        JwtConfig previous = jwtConfig(jwtProperties(keys, "previous"));
+        JwtConfig current = jwtConfig(jwtProperties(keys, "current"));
+
+        //Act
+        Jwt fromPrevious = current.jwtDecoder().decode(token(previous));
+        Jwt fromCurrent = previous.jwtDecoder().decode(token(current));
+
+        //Assert
+        assertThat(fromPrevious.getHeaders()).containsEntry("kid", "previous").containsEntry("alg", "RS256");
+        assertThat(fromCurrent.getHeaders()).containsEntry("kid", "current").containsEntry("alg", "ES256");
+    }
+
+    @Test
+    void shouldThrowIllegalStateExceptionWhenActiveKeyHasNoPrivateKey() throws Exception {
+        //Arrange
+        JwtProperties.Key key = pemKey("retired", "EC", new ECGenParameterSpec("secp256r1"));
+        key.setPrivateKey(null);
+
+        //Act Assert
+        assertThatThrownBy(() -> jwtConfig(jwtProperties(List.of(key), "retired")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("The active jwt key has no private key: retired");
+    }
+
+    private JwtProperties.Key pemKey(String id, String algorithm, ECGenParameterSpec curve) throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(algorithm);
+        if (curve != null) {
+            keyPairGenerator.initialize(curve);
+        } else {
+            keyPairGenerator.initialize(2048);
+        }
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+
+        JwtProperties.Key key = new JwtProperties.Key();
+        key.setId(id);
+        key.setPrivateKey(writePem(id + ".key", "PRIVATE KEY", keyPair.getPrivate().getEncoded()));
+        key.setPublicKey(writePem(id + ".pub", "PUBLIC KEY", keyPair.getPublic().getEncoded()));
+
+        return key;
+    }
+
+    private FileSystemResource writePem(String name, String type, byte[] encoded) throws IOException {
+        String pem = "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder(64, "\n".getBytes()).encodeToString(encoded)
+                + "\n-----END " + type + "-----\n";
+
+        return new FileSystemResource(Files.writeString(keyDir.resolve(name), pem));
+    }
+
+    private static JwtProperties jwtProperties(List<JwtProperties.Key> keys, String activeKeyId) {
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setKeys(keys);
+        jwtProperties.setActiveKeyId(activeKeyId);
+
+        return jwtProperties;
+    }
+
+    private static JwtConfig jwtConfig(JwtProperties jwtProperties) {
+        return new JwtConfig(jwtProperties, new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+    }
+
+    private static String token(JwtConfig jwtConfig) {
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer("self")
+                .issuedAt(now)
+                .expiresAt(now.plus(2, ChronoUnit.HOURS))
+                .subject("1")
+                .build();
+
+        return jwtConfig.jwtEncoder()
+                .encode(JwtEncoderParameters.from(jwtConfig.jwsHeader(), claims))
+                .getTokenValue();
+    }
+}
@@ -1,6 +1,7 @@
 package gr.aegean.controller;
 
 import gr.aegean.config.DeserializerConfig;
+import gr.aegean.config.JwtProperties;
 import gr.aegean.config.security.AuthConfig;
 import gr.aegean.config.security.JwtConfig;
 import gr.aegean.config.security.SecurityConfig;
@@ -36,6 +37,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
         AppUserDetailsService.class,
         DeserializerConfig.class,
         JwtConfig.class,
+        JwtProperties.class,
         CustomAccessDeniedHandler.class})
 class AuthControllerTest {
     @Autowired
@@ -10,17 +10,26 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import gr.aegean.cache.DvdResponse;
+import gr.aegean.cache.DvdResponseCache;
 import gr.aegean.config.DeserializerConfig;
+import gr.aegean.config.JwtProperties;
 import gr.aegean.config.security.AuthConfig;
 import gr.aegean.config.security.JwtConfig;
 import gr.aegean.config.security.SecurityConfig;
 import gr.aegean.exception.CustomAccessDeniedHandler;
+import gr.aegean.exception.ResourceConflictException;
 import gr.aegean.exception.ResourceNotFoundException;
 import gr.aegean.repository.UserRepository;
 import gr.aegean.service.DvdService;
+import gr.aegean.model.dto.dvd.DvdBatchResult;
 import gr.aegean.model.dto.dvd.DvdCreateRequest;
 import gr.aegean.model.dto.dvd.DvdDTO;
+import gr.aegean.model.dto.dvd.DvdPage;
+import gr.aegean.model.dto.dvd.DvdStockRequest;
+import gr.aegean.model.dto.dvd.DvdSuggestion;
 import gr.aegean.model.dvd.DvdGenre;
+import gr.aegean.model.dvd.DvdSearchMode;
 import gr.aegean.model.dto.dvd.DvdUpdateRequest;
 import gr.aegean.service.AppUserDetailsService;
 
@@ -38,9 +47,11 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.testcontainers.shaded.org.apache.commons.lang3.RandomStringUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 
 @WebMvcTest(DvdController.class)
@@ -49,6 +60,7 @@ import java.util.UUID;
         AppUserDetailsService.class,
         DeserializerConfig.class,
         JwtConfig.class,
+        JwtProperties.class,
         CustomAccessDeniedHandler.class})
 class DvdControllerTest {
     @Autowired
@@ -56,6 +68,8 @@ class DvdControllerTest {
     @MockBean
     private DvdService dvdService;
     @MockBean
+    private DvdResponseCache dvdResponseCache;
+    @MockBean
     private UserRepository userRepository;
     private static final String DVD_PATH = "/api/v1/dvds";
 
@@ -263,6 +277,120 @@ class DvdControllerTest {
         verifyNoInteractions(dvdService);
     }
 
+    @Test
+    @WithMockUser(username = "test", roles = "EMPLOYEE")
+    void shouldReturnResultOfEveryItemAndHTTP200WhenCreatingDvdsInBatch() throws Exception {
+        String requestBody = """
+                [
+                    {
+                        "title": "Lord of the Rings: The Fellowship of the Ring",
+                        "genre": "Adventure",
+                        "quantity": 5
+                    },
+                    {
+                        "title": "Lord of the Rings: The Fellowship of the Ring",
+                        "genre": "Adventure",
+                        "quantity": 5
+                    }
+                ]
+                """;
+
+        DvdDTO dvdDTO = generateDvd(UUID.randomUUID());
+        String responseBody = String.format("""
+                [
+                    {
+                        "index": 0,
+                        "statusCode": 201,
+                        "dvd": {
+                            "id": "%s",
+                            "title": "Lord of the Rings: The Fellowship of the Ring",
+                            "genre": "ADVENTURE",
+                            "quantity": 5
+                        }
+                    },
+                    {
+                        "index": 1,
+                        "statusCode": 409,
+                        "message": "Dvd already exists"
+                    }
+                ]
+                """, dvdDTO.id());
+
+        when(dvdService.createDvds(anyList())).thenReturn(List.of(
+                DvdBatchResult.success(0, 201, dvdDTO),
+                DvdBatchResult.failure(1, 409, "Dvd already exists")));
+
+        mockMvc.perform(post(DVD_PATH + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestBody)
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
+                .andExpectAll(
+                        status().isOk(),
+                        content().json(responseBody)
+                );
+    }
+
+    @Test
+    @WithMockUser(username = "test", roles = "EMPLOYEE")
+    void shouldReturnResultOfEveryIdWhenDvdsAreFetchedInBatch() throws Exception {
+        DvdDTO dvdDTO = generateDvd(UUID.randomUUID());
+        String missingId = UUID.randomUUID().toString();
+        String requestBody = String.format("""
+                ["%s", "%s"]
+                """, dvdDTO.id(), missingId);
+        String responseBody = String.format("""
+                [
+                    {
+                        "index": 0,
+                        "statusCode": 200,
+                        "dvd": {
+                            "id": "%s",
+                            "title": "Lord of the Rings: The Fellowship of the Ring",
+                            "genre": "ADVENTURE",
+                            "quantity": 5
+                        }
+                    },
+                    {
+                        "index": 1,
+                        "statusCode": 404,
+                        "message": "Dvd was not found with id: %s"
+                    }
+                ]
+                """, dvdDTO.id(), missingId);
+
+        when(dvdService.findDvdsByIds(List.of(dvdDTO.id().toString(), missingId))).thenReturn(List.of(
+                DvdBatchResult.success(0, 200, dvdDTO),
+                DvdBatchResult.failure(1, 404, "Dvd was not found with id: " + missingId)));
+
+        mockMvc.perform(post(DVD_PATH + "/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestBody)
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
+                .andExpectAll(
+                        status().isOk(),
+                        content().json(responseBody)
+                );
+    }
+
+    @Test
+    @WithMockUser(username = "test", roles = "CUSTOMER")
+    void shouldReturnHTTP403WhenUserIsNotAuthorizedToUpdateDvdsInBatch() throws Exception {
+        String requestBody = String.format("""
+                {
+                    "%s": {
+                        "quantity": 8
+                    }
+                }
+                """, UUID.randomUUID());
+
+        mockMvc.perform(put(DVD_PATH + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestBody))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(dvdService);
+    }
+
     @Test
     @WithMockUser(username = "test", roles = "EMPLOYEE")
     void shouldReturnHTTP200AndUpdatedDvdWhenUserIsAuthorized() throws Exception {
@@ -368,6 +496,122 @@ class DvdControllerTest {
         verifyNoInteractions(dvdService);
     }
 
+    @Test
+    @WithMockUser(username = "test", roles = "EMPLOYEE")
+    void shouldReturnHTTP200AndDvdWhenDvdIsCheckedOut() throws Exception {
+        String requestBody = """
+                {
+                    "quantity": 2
+                }
+                """;
+        String responseBody = """
+                {
+                    "title": "Interstellar",
+                    "genre": "SCIENCE_FICTION",
+                    "quantity": 3
+                }
+                """;
+
+        DvdDTO dvdDTO = new DvdDTO(UUID.randomUUID(), "Interstellar", DvdGenre.SCIENCE_FICTION, 3);
+
+        when(dvdService.checkoutDvd(any(String.class), any(DvdStockRequest.class))).thenReturn(dvdDTO);
+
+        mockMvc.perform(post(DVD_PATH + "/{dvdId}/checkout", dvdDTO.id().toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestBody)
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
+                .andExpectAll(
+                        status().isOk(),
+                        content().json(responseBody)
+                );
+
+        verify(dvdService, times(1)).checkoutDvd(dvdDTO.id().toString(), new DvdStockRequest(2));
+    }
+
+    @Test
+    @WithMockUser(username = "test", roles = "EMPLOYEE")
+    void shouldReturnHTTP409WhenThereAreNotEnoughCopiesToCheckout() throws Exception {
+        String requestBody = """
+                {
+                    "quantity": 5
+                }
+                """;
+
+        String id = UUID.randomUUID().toString();
+        String responseBody = String.format("""
+                {
+                    "message": "Not enough copies in stock for dvd with id: %s",
+                    "statusCode": 409
+                }
+                """, id);
+
+        when(dvdService.checkoutDvd(any(String.class), any(DvdStockRequest.class))).thenThrow(
+                new ResourceConflictException("Not enough copies in stock for dvd with id: " + id));
+
+        mockMvc.perform(post(DVD_PATH + "/{dvdId}/checkout", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestBody)
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
+                .andExpectAll(
+                        status().isConflict(),
+                        content().json(responseBody)
+                );
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"{}", "{\"quantity\": 0}"})
+    @WithMockUser(username = "test", roles = "EMPLOYEE")
+    void shouldReturnHTTP400WhenQuantityIsMissingOrNotPositiveForDvdStockRequest(String requestBody) throws Exception {
+        mockMvc.perform(post(DVD_PATH + "/{dvdId}/return", UUID.randomUUID().toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestBody)
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(dvdService);
+    }
+
+    @Test
+    @WithMockUser(username = "test", roles = "EMPLOYEE")
+    void shouldReturnHTTP200AndDvdWhenDvdIsReturned() throws Exception {
+        String requestBody = """
+                {
+                    "quantity": 1
+                }
+                """;
+        String responseBody = """
+                {
+                    "title": "Interstellar",
+                    "genre": "SCIENCE_FICTION",
+                    "quantity": 4
+                }
+                """;
+
+        DvdDTO dvdDTO = new DvdDTO(UUID.randomUUID(), "Interstellar", DvdGenre.SCIENCE_FICTION, 4);
+
+        when(dvdService.returnDvd(any(String.class), any(DvdStockRequest.class))).thenReturn(dvdDTO);
+
+        mockMvc.perform(post(DVD_PATH + "/{dvdId}/return", dvdDTO.id().toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestBody)
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
+                .andExpectAll(
+                        status().isOk(),
+                        content().json(responseBody)
+                );
+    }
+
+    @Test
+    @WithMockUser(username = "test", roles = "CUSTOMER")
+    void shouldReturnHTTP403WhenUserIsNotAuthorizedToCheckoutDvd() throws Exception {
+        mockMvc.perform(post(DVD_PATH + "/{dvdId}/checkout", UUID.randomUUID())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\": 1}"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(dvdService);
+    }
+
     @Test
     @WithMockUser(username = "test", roles = "EMPLOYEE")
     void shouldReturnDvdAndHTTP200WhenUserIsAuthorized() throws Exception {
@@ -390,6 +634,117 @@ class DvdControllerTest {
                 );
     }
 
+    @Test
+    @WithMockUser(username = "test", roles = "EMPLOYEE")
+    void shouldReturnHTTP304WhenDvdMatchesETag() throws Exception {
+        DvdDTO dvdDTO = generateDvd(UUID.randomUUID());
+
+        when(dvdService.findDvdById(dvdDTO.id().toString())).thenReturn(dvdDTO);
+
+        String eTag = mockMvc.perform(get(DVD_PATH + '/' + "{dvdId}", dvdDTO.id())
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
+                .andExpectAll(
+                        status().isOk(),
+                        header().exists(HttpHeaders.ETAG)
+                )
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(DVD_PATH + '/' + "{dvdId}", dvdDTO.id())
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpectAll(
+                        status().isNotModified(),
+                        header().string(HttpHeaders.ETAG, eTag),
+                        content().string("")
+                );
+    }
+
+    @Test
+    @WithMockUser(username = "test", roles = "EMPLOYEE")
+    void shouldReturnHTTP200WhenDvdChangedSinceETag() throws Exception {
+        DvdDTO dvdDTO = generateDvd(UUID.randomUUID());
+        DvdDTO updated = new DvdDTO(dvdDTO.id(), dvdDTO.title(), dvdDTO.genre(), 4);
+
+        when(dvdService.findDvdById(dvdDTO.id().toString())).thenReturn(dvdDTO, updated);
+
+        String eTag = mockMvc.perform(get(DVD_PATH + '/' + "{dvdId}", dvdDTO.id())
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(DVD_PATH + '/' + "{dvdId}", dvdDTO.id())
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpectAll(
+                        status().isOk(),
+                        content().json("{\"quantity\": 4}")
+                );
+    }
+
+    @Test
+    @WithMockUser(username = "test", roles = "EMPLOYEE")
+    void shouldWriteCachedResponseWhenResponseCacheIsEnabled() throws Exception {
+        String dvdId = UUID.randomUUID().toString();
+        String body = String.format(
+                "{\"id\":\"%s\",\"title\":\"Up\",\"genre\":\"COMEDY\",\"quantity\":2}",
+                dvdId);
+
+        when(dvdResponseCache.isEnabled()).thenReturn(true);
+        when(dvdResponseCache.get(eq(dvdId), any())).thenReturn(
+                new DvdResponse(body.getBytes(StandardCharsets.UTF_8), "\"abc\""));
+
+        mockMvc.perform(get(DVD_PATH + '/' + "{dvdId}", dvdId)
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
+                .andExpectAll(
+                        status().isOk(),
+                        header().string(HttpHeaders.ETAG, "\"abc\""),
+                        header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE),
+                        content().string(body)
+                );
+
+        verifyNoInteractions(dvdService);
+    }
+
+    @Test
+    @WithMockUser(username = "test", roles = "EMPLOYEE")
+    void shouldLookUpCachedResponseByCanonicalIdWhenIdIsUpperCase() throws Exception {
+        String dvdId = UUID.randomUUID().toString();
+
+        when(dvdResponseCache.isEnabled()).thenReturn(true);
+        when(dvdResponseCache.get(eq(dvdId), any())).thenReturn(
+                new DvdResponse("{}".getBytes(StandardCharsets.UTF_8), "\"abc\""));
+
+        mockMvc.perform(get(DVD_PATH + '/' + "{dvdId}", dvdId.toUpperCase())
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
+                .andExpectAll(
+                        status().isOk(),
+                        header().string(HttpHeaders.ETAG, "\"abc\"")
+                );
+
+        verify(dvdResponseCache).get(eq(dvdId), any());
+    }
+
+    @Test
+    @WithMockUser(username = "test", roles = "EMPLOYEE")
+    void shouldReturnHTTP304WhenCachedResponseMatchesETag() throws Exception {
+        String dvdId = UUID.randomUUID().toString();
+
+        when(dvdResponseCache.isEnabled()).thenReturn(true);
+        when(dvdResponseCache.get(eq(dvdId), any())).thenReturn(
+                new DvdResponse("{}".getBytes(StandardCharsets.UTF_8), "\"abc\""));
+
+        mockMvc.perform(get(DVD_PATH + '/' + "{dvdId}", dvdId)
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"abc\""))
+                .andExpectAll(
+                        status().isNotModified(),
+                        content().string("")
+                );
+    }
+
     @Test
     @WithMockUser(username = "test", roles = "EMPLOYEE")
     void shouldReturnHTTP404WhenDvdIsNotFound() throws Exception {
@@ -449,7 +804,7 @@ class DvdControllerTest {
                 ]
                 """, id1, id2);
 
-        when(dvdService.findDvds(title)).thenReturn(dvdsDTO);
+        when(dvdService.findDvds(title, DvdSearchMode.CONTAINS, null, null)).thenReturn(new DvdPage(dvdsDTO, null));
 
         mockMvc.perform(get(DVD_PATH + "?title={title}", title)
                         .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
@@ -468,7 +823,8 @@ class DvdControllerTest {
                     []
                 """;
 
-        when(dvdService.findDvds(title)).thenReturn(Collections.emptyList());
+        when(dvdService.findDvds(title, DvdSearchMode.CONTAINS, null, null))
+                .thenReturn(new DvdPage(Collections.emptyList(), null));
 
         mockMvc.perform(get(DVD_PATH + "?title={title}", title)
                         .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
@@ -501,7 +857,7 @@ class DvdControllerTest {
                 ]
                 """, id1, id2);
 
-        when(dvdService.findDvds(null)).thenReturn(dvdsDTO);
+        when(dvdService.findDvds(null, DvdSearchMode.CONTAINS, null, null)).thenReturn(new DvdPage(dvdsDTO, null));
 
         mockMvc.perform(get(DVD_PATH)
                         .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
@@ -518,7 +874,8 @@ class DvdControllerTest {
                     []
                 """;
 
-        when(dvdService.findDvds(null)).thenReturn(Collections.emptyList());
+        when(dvdService.findDvds(null, DvdSearchMode.CONTAINS, null, null))
+                .thenReturn(new DvdPage(Collections.emptyList(), null));
 
         mockMvc.perform(get(DVD_PATH)
                         .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
@@ -528,6 +885,148 @@ class DvdControllerTest {
                 );
     }
 
+    @Test
+    @WithMockUser(username = "test", roles = "EMPLOYEE")
+    void shouldReturnLinkToNextPageWhenMoreDvdsExistAndHTTP200ForAuthorizedUser() throws Exception {
+        List<DvdDTO> dvdsDTO = List.of(generateDvd(UUID.randomUUID()));
+        String next = "nextPageToken";
+
+        when(dvdService.findDvds(null, DvdSearchMode.CONTAINS, null, 1)).thenReturn(new DvdPage(dvdsDTO, next));
+
+        mockMvc.perform(get(DVD_PATH + "?limit={limit}", 1)
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
+                .andExpectAll(
+                        status().isOk(),
+                        header().string(HttpHeaders.LINK, containsString("limit=1&after=" + next)),
+                        header().string(HttpHeaders.LINK, containsString("rel=\"next\""))
+                );
+    }
+
+    @Test
+    @WithMockUser(username = "test", roles = "EMPLOYEE")
+    void shouldReturnHTTP304WithoutQueryingDvdsWhenCatalogueVersionMatchesETag() throws Exception {
+        when(dvdService.findCatalogueVersion()).thenReturn(42L);
+
+        mockMvc.perform(get(DVD_PATH)
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"catalogue-42\""))
+                .andExpectAll(
+                        status().isNotModified(),
+                        header().string(HttpHeaders.ETAG, "\"catalogue-42\"")
+                );
+
+        verify(dvdService, never()).findDvds(any(), any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "test", roles = "EMPLOYEE")
+    void shouldReturnDvdsWithCatalogueETagWhenCatalogueChanged() throws Exception {
+        List<DvdDTO> dvdsDTO = List.of(generateDvd(UUID.randomUUID()));
+
+        when(dvdService.findCatalogueVersion()).thenReturn(43L);
+        when(dvdService.findDvds(null, DvdSearchMode.CONTAINS, null, null)).thenReturn(new DvdPage(dvdsDTO, null));
+
+        mockMvc.perform(get(DVD_PATH)
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"catalogue-42\""))
+                .andExpectAll(
+                        status().isOk(),
+                        header().string(HttpHeaders.ETAG, "\"catalogue-43\"")
+                );
+    }
+
+    @Test
+    @WithMockUser(username = "test", roles = "EMPLOYEE")
+    void shouldReturnHTTP400WhenCursorIsInvalid() throws Exception {
+        String responseBody = """
+                {
+                    "message": "Invalid cursor",
+                    "statusCode": 400
+                }
+                """;
+
+        when(dvdService.findDvds(null, DvdSearchMode.CONTAINS, "invalid", null))
+                .thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        mockMvc.perform(get(DVD_PATH + "?after={after}", "invalid")
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
+                .andExpectAll(
+                        status().isBadRequest(),
+                        content().json(responseBody)
+                );
+    }
+
+    @Test
+    @WithMockUser(username = "test", roles = "EMPLOYEE")
+    void shouldReturnDvdsRankedBySimilarityAndHTTP200WhenSearchModeIsSimilar() throws Exception {
+        String title = "Lord of the Rigns";
+        DvdDTO dvdDTO = generateDvd(UUID.randomUUID());
+        String responseBody = String.format("""
+                [
+                    {
+                        "id": "%s",
+                        "title": "Lord of the Rings: The Fellowship of the Ring",
+                        "genre": "ADVENTURE",
+                        "quantity": 5
+                    }
+                ]
+                """, dvdDTO.id());
+
+        when(dvdService.findDvds(title, DvdSearchMode.SIMILAR, null, 10))
+                .thenReturn(new DvdPage(List.of(dvdDTO), null));
+
+        mockMvc.perform(get(DVD_PATH + "?title={title}&mode=similar&limit=10", title)
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
+                .andExpectAll(
+                        status().isOk(),
+                        content().json(responseBody)
+                );
+    }
+
+    @Test
+    @WithMockUser(username = "test", roles = "EMPLOYEE")
+    void shouldReturnHTTP400WhenSearchModeIsInvalid() throws Exception {
+        String responseBody = """
+                {
+                    "message": "Invalid search mode: fuzzy",
+                    "statusCode": 400
+                }
+                """;
+
+        mockMvc.perform(get(DVD_PATH + "?title={title}&mode=fuzzy", "Lord")
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
+                .andExpectAll(
+                        status().isBadRequest(),
+                        content().json(responseBody)
+                );
+
+        verifyNoInteractions(dvdService);
+    }
+
+    @Test
+    @WithMockUser(username = "test", roles = "EMPLOYEE")
+    void shouldReturnSuggestionsAndHTTP200WhenUserIsAuthorized() throws Exception {
+        UUID id = UUID.randomUUID();
+        String responseBody = String.format("""
+                [
+                    {
+                        "id": "%s",
+                        "title": "Lord of the Rings: The Fellowship of the Ring"
+                    }
+                ]
+                """, id);
+
+        when(dvdService.suggestDvds("lord", 5)).thenReturn(List.of(
+                new DvdSuggestion(id, "Lord of the Rings: The Fellowship of the Ring")));
+
+        mockMvc.perform(get(DVD_PATH + "/autocomplete?prefix={prefix}&limit=5", "lord")
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
+                .andExpectAll(
+                        status().isOk(),
+                        content().json(responseBody)
+                );
+    }
+
     @Test
     @WithMockUser(username = "test", roles = "CUSTOMER")
     void shouldReturnHTTP403WhenUserIsNotAuthorizedToFindDvds() throws Exception {
@@ -538,6 +1037,44 @@ class DvdControllerTest {
         verifyNoInteractions(dvdService);
     }
 
+    @Test
+    @WithMockUser(username = "test", roles = "EMPLOYEE")
+    @SuppressWarnings("unchecked")
+    void shouldExportDvdsAsNdjsonAndHTTP200WhenUserIsAuthorized() throws Exception {
+        UUID id1 = UUID.randomUUID();
+        UUID id2 = UUID.randomUUID();
+        List<DvdDTO> dvdsDTO = generateDvds(id1, id2);
+        String responseBody = String.format("""
+                {"id":"%s","title":"Lord of the Rings: The Fellowship of the Ring","genre":"ADVENTURE","quantity":5}
+                {"id":"%s","title":"Lord of the Rings: The Two Towers","genre":"ADVENTURE","quantity":5}
+                """, id1, id2);
+
+        doAnswer(invocation -> {
+            Consumer<DvdDTO> consumer = invocation.getArgument(0);
+            dvdsDTO.forEach(consumer);
+
+            return null;
+        }).when(dvdService).exportDvds(any());
+
+        mockMvc.perform(get(DVD_PATH + "/export")
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_NDJSON))
+                .andExpectAll(
+                        status().isOk(),
+                        content().contentType(MediaType.APPLICATION_NDJSON),
+                        content().string(responseBody)
+                );
+    }
+
+    @Test
+    @WithMockUser(username = "test", roles = "CUSTOMER")
+    void shouldReturnHTTP403WhenUserIsNotAuthorizedToExportDvds() throws Exception {
+        mockMvc.perform(get(DVD_PATH + "/export")
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(dvdService);
+    }
+
     @Test
     @WithMockUser(username = "test", roles = "EMPLOYEE")
     void shouldDeleteDvdWhenUserIsAuthorized() throws Exception {
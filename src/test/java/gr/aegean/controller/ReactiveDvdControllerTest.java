@@ -0,0 +1,158 @@
+package gr.aegean.controller;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import gr.aegean.config.DeserializerConfig;
+import gr.aegean.config.JwtProperties;
+import gr.aegean.config.security.AuthConfig;
+import gr.aegean.config.security.JwtConfig;
+import gr.aegean.config.security.SecurityConfig;
+import gr.aegean.exception.CustomAccessDeniedHandler;
+import gr.aegean.exception.ResourceNotFoundException;
+import gr.aegean.repository.UserRepository;
+import gr.aegean.service.AppUserDetailsService;
+import gr.aegean.service.ReactiveDvdService;
+import gr.aegean.model.dto.dvd.DvdDTO;
+import gr.aegean.model.dvd.DvdGenre;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.UUID;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+@WebMvcTest(ReactiveDvdController.class)
+@TestPropertySource(properties = "dvd.reactive.enabled=true")
+@Import({SecurityConfig.class,
+        AuthConfig.class,
+        AppUserDetailsService.class,
+        DeserializerConfig.class,
+        JwtConfig.class,
+        JwtProperties.class,
+        CustomAccessDeniedHandler.class})
+class ReactiveDvdControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @MockBean
+    private ReactiveDvdService reactiveDvdService;
+    @MockBean
+    private UserRepository userRepository;
+    private static final String DVD_PATH = "/api/v1/reactive/dvds";
+
+    @Test
+    @WithMockUser(username = "test", roles = "EMPLOYEE")
+    void shouldReturnDvdAndHTTP200WhenUserIsAuthorizedToFindDvdById() throws Exception {
+        DvdDTO dvdDTO = generateDvd(UUID.randomUUID(), "Lord of the Rings: The Fellowship of the Ring");
+        String responseBody = String.format("""
+                {
+                    "id": "%s",
+                    "title": "Lord of the Rings: The Fellowship of the Ring",
+                    "genre": "ADVENTURE",
+                    "quantity": 5
+                }
+                """, dvdDTO.id());
+
+        when(reactiveDvdService.findDvdById(dvdDTO.id().toString())).thenReturn(Mono.just(dvdDTO));
+
+        MvcResult result = mockMvc.perform(get(DVD_PATH + '/' + "{dvdId}", dvdDTO.id())
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpectAll(
+                        status().isOk(),
+                        content().json(responseBody)
+                );
+    }
+
+    @Test
+    @WithMockUser(username = "test", roles = "EMPLOYEE")
+    void shouldReturnHTTP404WhenDvdIsNotFound() throws Exception {
+        UUID id = UUID.randomUUID();
+        String responseBody = String.format("""
+                {
+                    "message": "Dvd was not found with id: %s",
+                    "statusCode": 404
+                }
+                """, id);
+
+        when(reactiveDvdService.findDvdById(id.toString())).thenReturn(Mono.error(
+                new ResourceNotFoundException("Dvd was not found with id: " + id)));
+
+        MvcResult result = mockMvc.perform(get(DVD_PATH + '/' + "{dvdId}", id)
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpectAll(
+                        status().isNotFound(),
+                        content().json(responseBody)
+                );
+    }
+
+    @Test
+    @WithMockUser(username = "test", roles = "EMPLOYEE")
+    void shouldStreamDvdsAsNdjsonAndHTTP200WhenUserIsAuthorized() throws Exception {
+        UUID id1 = UUID.randomUUID();
+        UUID id2 = UUID.randomUUID();
+        String responseBody = String.format("""
+                {"id":"%s","title":"Lord of the Rings: The Fellowship of the Ring","genre":"ADVENTURE","quantity":5}
+                {"id":"%s","title":"Lord of the Rings: The Two Towers","genre":"ADVENTURE","quantity":5}
+                """, id1, id2);
+
+        when(reactiveDvdService.findDvds("lord")).thenReturn(Flux.just(
+                generateDvd(id1, "Lord of the Rings: The Fellowship of the Ring"),
+                generateDvd(id2, "Lord of the Rings: The Two Towers")));
+
+        MvcResult result = mockMvc.perform(get(DVD_PATH)
+                        .queryParam("title", "lord")
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpectAll(
+                        status().isOk(),
+                        content().contentType(MediaType.APPLICATION_NDJSON),
+                        content().string(responseBody)
+                );
+    }
+
+    @Test
+    @WithMockUser(username = "test", roles = "CUSTOMER")
+    void shouldReturnHTTP403WhenUserIsNotAuthorizedToStreamDvds() throws Exception {
+        mockMvc.perform(get(DVD_PATH)
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(reactiveDvdService);
+    }
+
+    private DvdDTO generateDvd(UUID id, String title) {
+        return new DvdDTO(
+                id,
+                title,
+                DvdGenre.ADVENTURE,
+                5);
+    }
+}
@@ -35,12 +35,14 @@ class DvdRowMapperTest {
             when(resultSet.getString("title")).thenReturn("Inception");
             when(resultSet.getString("genre")).thenReturn("SCIENCE_FICTION");
             when(resultSet.getInt("quantity")).thenReturn(3);
+            when(resultSet.getLong("version")).thenReturn(2L);
 
             //Act
             Dvd actual = underTest.mapRow(resultSet, 1);
 
             //Assert
             assertThat(actual).isEqualTo(expected);
+            assertThat(actual.getVersion()).isEqualTo(2L);
         }
     }
 }
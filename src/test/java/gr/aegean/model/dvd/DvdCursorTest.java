@@ -0,0 +1,35 @@
+package gr.aegean.model.dvd;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.UUID;
+
+
+class DvdCursorTest {
+
+    @Test
+    void shouldDecodeEncodedCursor() {
+        //Arrange
+        DvdCursor expected = new DvdCursor("Lord of the Rings: The Fellowship of the Ring", UUID.randomUUID());
+
+        //Act
+        DvdCursor actual = DvdCursor.decode(expected.encode());
+
+        //Assert
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"invalid", "!@#$", "bm8tc2VwYXJhdG9y"})
+    void shouldThrowIllegalArgumentExceptionWhenCursorIsInvalid(String token) {
+        //Act Assert
+        assertThatThrownBy(() -> DvdCursor.decode(token))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+    }
+}
@@ -0,0 +1,72 @@
+package gr.aegean.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import gr.aegean.AbstractUnitTest;
+import gr.aegean.entity.Dvd;
+import gr.aegean.exception.DuplicateResourceException;
+import gr.aegean.model.dvd.DvdGenre;
+
+
+class DvdRepositoryTest extends AbstractUnitTest {
+    private DvdRepository underTest;
+
+    @BeforeEach
+    void setup() {
+        underTest = new DvdRepository(getJdbcTemplate());
+
+        underTest.deleteAllDvds();
+    }
+
+    @Test
+    void shouldThrowDuplicateResourceExceptionWhenTitleAlreadyExists() {
+        //Arrange
+        Dvd existing = underTest.createDvd(new Dvd("Lord of the Rings: The Two Towers", DvdGenre.ADVENTURE, 5));
+        Dvd duplicate = new Dvd("Lord of the Rings: The Two Towers", DvdGenre.COMEDY, 3);
+
+        //Act Assert
+        assertThatThrownBy(() -> underTest.createDvd(duplicate))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("Dvd already exists");
+        assertThat(underTest.countDvds()).isEqualTo(1);
+        assertThat(underTest.findDvdByID(existing.getId().toString())).contains(existing);
+    }
+
+    @Test
+    void shouldSkipDvdOfBatchWhoseTitleAlreadyExists() {
+        //Arrange
+        Dvd existing = underTest.createDvd(new Dvd("Lord of the Rings: The Two Towers", DvdGenre.ADVENTURE, 5));
+        Dvd duplicate = new Dvd("Lord of the Rings: The Two Towers", DvdGenre.COMEDY, 3);
+        Dvd created = new Dvd("Lord of the Rings: The Return of the King", DvdGenre.ADVENTURE, 2);
+
+        //Act
+        List<Dvd> actual = underTest.createDvds(List.of(duplicate, created));
+
+        //Assert
+        assertThat(actual).containsExactly(created);
+        assertThat(underTest.countDvds()).isEqualTo(2);
+        assertThat(underTest.findDvdByID(existing.getId().toString())).contains(existing);
+        assertThat(underTest.findDvdByID(duplicate.getId().toString())).isEmpty();
+    }
+
+    @Test
+    void shouldInsertOnlyOneOfTheDvdsOfBatchWithTheSameTitle() {
+        //Arrange
+        Dvd first = new Dvd("Lord of the Rings: The Two Towers", DvdGenre.ADVENTURE, 5);
+        Dvd second = new Dvd("Lord of the Rings: The Two Towers", DvdGenre.COMEDY, 3);
+
+        //Act
+        List<Dvd> actual = underTest.createDvds(List.of(first, second));
+
+        //Assert
+        assertThat(actual).hasSize(1);
+        assertThat(underTest.countDvds()).isEqualTo(1);
+        assertThat(underTest.findDvdByID(actual.get(0).getId().toString())).contains(actual.get(0));
+    }
+}
@@ -1,13 +1,26 @@
 package gr.aegean.service;
 
+import gr.aegean.cache.DvdCache;
+import gr.aegean.cache.DvdSearchCache;
+import gr.aegean.cache.DvdStock;
+import gr.aegean.cache.DvdTitleIndex;
+import gr.aegean.cache.RedisHashDvdCacheStore;
+import gr.aegean.config.DvdCacheProperties;
+import gr.aegean.config.DvdStockProperties;
 import gr.aegean.exception.DuplicateResourceException;
+import gr.aegean.exception.ResourceConflictException;
 import gr.aegean.exception.ResourceNotFoundException;
 import gr.aegean.AbstractUnitTest;
 import gr.aegean.repository.DvdRepository;
 import gr.aegean.entity.Dvd;
+import gr.aegean.model.dto.dvd.DvdBatchResult;
 import gr.aegean.model.dto.dvd.DvdCreateRequest;
 import gr.aegean.model.dto.dvd.DvdDTO;
+import gr.aegean.model.dto.dvd.DvdPage;
+import gr.aegean.model.dto.dvd.DvdStockRequest;
+import gr.aegean.model.dto.dvd.DvdSuggestion;
 import gr.aegean.model.dvd.DvdGenre;
+import gr.aegean.model.dvd.DvdSearchMode;
 import gr.aegean.model.dto.dvd.DvdUpdateRequest;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -18,26 +31,48 @@ import org.junit.jupiter.params.provider.EmptySource;
 import org.junit.jupiter.params.provider.NullAndEmptySource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import jakarta.validation.Validation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 @ExtendWith(MockitoExtension.class)
 class DvdServiceTest extends AbstractUnitTest {
+    private JdbcTemplate jdbcTemplate;
     private DvdRepository dvdRepository;
     private final String CACHE_NAME = "dvds";
     private DvdService underTest;
 
     @BeforeEach()
     void setup() {
-        dvdRepository = new DvdRepository(getJdbcTemplate());
-        underTest = new DvdService(dvdRepository, redisTemplate());
+        jdbcTemplate = getJdbcTemplate();
+        dvdRepository = new DvdRepository(jdbcTemplate);
+        underTest = dvdService(dvdRepository);
 
         redisTemplate().delete(CACHE_NAME);
+        redisTemplate().delete(redisTemplate().keys("dvd:search:*"));
+        redisTemplate().delete(redisTemplate().keys("dvd:missing:*"));
         dvdRepository.deleteAllDvds();
     }
 
@@ -86,6 +121,128 @@ class DvdServiceTest extends AbstractUnitTest {
                 .hasMessage("No title was provided");
     }
 
+    @Test
+    void shouldCreateDvdsInBatchAndReportEveryItem() {
+        //Arrange
+        underTest.createDvd(generateDvd());
+        List<DvdCreateRequest> createRequests = List.of(
+                new DvdCreateRequest("Lord of the Rings: The Two Towers", DvdGenre.ADVENTURE, 5),
+                generateDvd(),
+                new DvdCreateRequest("Lord of the Rings: The Two  Towers", DvdGenre.ADVENTURE, 3),
+                new DvdCreateRequest("Lord of the Rings: The Return of the King", DvdGenre.ADVENTURE, -1));
+
+        //Act
+        List<DvdBatchResult> actual = underTest.createDvds(createRequests);
+
+        //Assert
+        assertThat(actual).extracting(DvdBatchResult::index).containsExactly(0, 1, 2, 3);
+        assertThat(actual).extracting(DvdBatchResult::statusCode).containsExactly(201, 409, 409, 400);
+        assertThat(actual.get(3).message()).isEqualTo("The quantity must be a positive number");
+        assertThat(redisTemplate().opsForHash()
+                .hasKey(CACHE_NAME, actual.get(0).dvd().id().toString()))
+                .isTrue();
+        assertThat(underTest.findDvdById(actual.get(0).dvd().id().toString())).isEqualTo(actual.get(0).dvd());
+    }
+
+    @Test
+    void shouldReportConflictForDvdOfBatchWhoseTitleAlreadyExists() {
+        //Arrange
+        Dvd existing = dvdRepository.createDvd(new Dvd(
+                "Lord of the Rings: The Fellowship of the Ring",
+                DvdGenre.ADVENTURE,
+                5));
+        List<DvdCreateRequest> createRequests = List.of(
+                new DvdCreateRequest("Lord of the Rings: The Fellowship of the Ring", DvdGenre.COMEDY, 3),
+                new DvdCreateRequest("Lord of the Rings: The Two Towers", DvdGenre.ADVENTURE, 5));
+
+        //Act
+        List<DvdBatchResult> actual = underTest.createDvds(createRequests);
+
+        //Assert
+        assertThat(actual).extracting(DvdBatchResult::statusCode).containsExactly(409, 201);
+        assertThat(actual.get(0).message()).isEqualTo("Dvd already exists");
+        assertThat(dvdRepository.findDvdByID(existing.getId().toString())).contains(existing);
+        assertThat(redisTemplate().opsForHash().size(CACHE_NAME)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCreateOnlyTheFirstOfTheDvdsOfBatchWithTheSameTitle() {
+        //Arrange
+        List<DvdCreateRequest> createRequests = List.of(generateDvd(), generateDvd());
+
+        //Act
+        List<DvdBatchResult> actual = underTest.createDvds(createRequests);
+
+        //Assert
+        assertThat(actual).extracting(DvdBatchResult::statusCode).containsExactly(201, 409);
+        assertThat(actual.get(1).message()).isEqualTo("Dvd already exists");
+        assertThat(dvdRepository.countDvds()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldUpdateDvdsInBatchAndReportEveryItem() {
+        //Arrange
+        Dvd dvd = dvdRepository.createDvd(new Dvd(
+                "Lord of the Rings: The Fellowship of the Ring",
+                DvdGenre.ADVENTURE,
+                5));
+        String missingId = UUID.randomUUID().toString();
+        Map<String, DvdUpdateRequest> updateRequests = new LinkedHashMap<>();
+        updateRequests.put(dvd.getId().toString(), new DvdUpdateRequest(7, null));
+        updateRequests.put(missingId, new DvdUpdateRequest(7, null));
+        updateRequests.put("invalid", new DvdUpdateRequest(null, null));
+
+        //Act
+        List<DvdBatchResult> actual = underTest.updateDvds(updateRequests);
+        dvd.setQuantity(7);
+
+        //Assert
+        assertThat(actual).extracting(DvdBatchResult::statusCode).containsExactly(200, 404, 400);
+        assertThat(actual.get(1).message()).isEqualTo("Dvd was not found with id: " + missingId);
+        assertThat(actual.get(2).message()).isEqualTo("Either quantity or genre must be provided");
+        assertThat(dvdRepository.findDvdByID(dvd.getId().toString())).contains(dvd);
+        assertThat(redisTemplate().opsForHash().get(CACHE_NAME, dvd.getId().toString())).isEqualTo(dvd);
+    }
+
+    @Test
+    void shouldFindDvdsByIdsInRequestOrderAndCacheTheMisses() {
+        //Arrange
+        Dvd cached = dvdRepository.createDvd(new Dvd(
+                "Lord of the Rings: The Fellowship of the Ring",
+                DvdGenre.ADVENTURE,
+                5));
+        Dvd uncached = dvdRepository.createDvd(new Dvd(
+                "Lord of the Rings: The Two Towers",
+                DvdGenre.ADVENTURE,
+                3));
+        redisTemplate().opsForHash().put(CACHE_NAME, cached.getId().toString(), cached);
+        String missingId = UUID.randomUUID().toString();
+
+        //Act
+        List<DvdBatchResult> actual = underTest.findDvdsByIds(List.of(
+                uncached.getId().toString(),
+                missingId,
+                cached.getId().toString().toUpperCase(),
+                "invalid"));
+
+        //Assert
+        assertThat(actual).extracting(DvdBatchResult::index).containsExactly(0, 1, 2, 3);
+        assertThat(actual).extracting(DvdBatchResult::statusCode).containsExactly(200, 404, 200, 404);
+        assertThat(actual.get(0).dvd().id()).isEqualTo(uncached.getId());
+        assertThat(actual.get(1).message()).isEqualTo("Dvd was not found with id: " + missingId);
+        assertThat(actual.get(2).dvd().id()).isEqualTo(cached.getId());
+        assertThat(redisTemplate().opsForHash().get(CACHE_NAME, uncached.getId().toString())).isEqualTo(uncached);
+        assertThat(redisTemplate().hasKey(DvdCache.MISSING_KEY_PREFIX + missingId)).isTrue();
+    }
+
+    @Test
+    void shouldThrowIllegalArgumentExceptionWhenBatchIsEmpty() {
+        //Act Assert
+        assertThatThrownBy(() -> underTest.createDvds(List.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("The batch must contain between 1 and 5000 Dvds");
+    }
+
     @Test
     void shouldUpdateDvdAndCache() {
         // Arrange
@@ -135,6 +292,176 @@ class DvdServiceTest extends AbstractUnitTest {
                 .hasMessage("Dvd was not found with id: " + id);
     }
 
+    @Test
+    void shouldThrowResourceConflictExceptionWhenDvdWasUpdatedSinceItWasRead() {
+        //Arrange
+        Dvd dvd = dvdRepository.createDvd(new Dvd(
+                "Lord of the Rings: The Fellowship of the Ring",
+                DvdGenre.ADVENTURE,
+                5));
+        Dvd stale = dvdRepository.findDvdByID(dvd.getId().toString()).orElseThrow();
+        underTest.updateDvd(dvd.getId().toString(), new DvdUpdateRequest(7, null));
+        stale.setGenre(DvdGenre.THRILLER);
+
+        //Act Assert
+        assertThatThrownBy(() -> dvdRepository.updateDvd(stale))
+                .isInstanceOf(ResourceConflictException.class)
+                .hasMessage("Dvd was modified concurrently: " + dvd.getId());
+        assertThat(dvdRepository.findDvdByID(dvd.getId().toString()))
+                .hasValueSatisfying(actual -> {
+                    assertThat(actual.getQuantity()).isEqualTo(7);
+                    assertThat(actual.getGenre()).isEqualTo(DvdGenre.ADVENTURE);
+                });
+    }
+
+    @Test
+    void shouldRetryUpdateWhenDvdIsUpdatedBetweenTheReadAndTheWrite() {
+        //Arrange
+        Dvd dvd = dvdRepository.createDvd(new Dvd(
+                "Lord of the Rings: The Fellowship of the Ring",
+                DvdGenre.ADVENTURE,
+                5));
+        DvdService dvdService = dvdService(new ConcurrentlyUpdatedDvdRepository(jdbcTemplate, 1));
+
+        //Act
+        DvdDTO actual = dvdService.updateDvd(dvd.getId().toString(), new DvdUpdateRequest(null, DvdGenre.THRILLER));
+
+        //Assert
+        assertThat(actual.genre()).isEqualTo(DvdGenre.THRILLER);
+        assertThat(actual.quantity()).isEqualTo(9);
+        assertThat(dvdRepository.findDvdByID(dvd.getId().toString()))
+                .hasValueSatisfying(updated -> {
+                    assertThat(updated.getGenre()).isEqualTo(DvdGenre.THRILLER);
+                    assertThat(updated.getQuantity()).isEqualTo(9);
+                    assertThat(updated.getVersion()).isEqualTo(2);
+                });
+    }
+
+    @Test
+    void shouldThrowResourceConflictExceptionWhenDvdIsUpdatedConcurrentlyOnEveryAttempt() {
+        //Arrange
+        Dvd dvd = dvdRepository.createDvd(new Dvd(
+                "Lord of the Rings: The Fellowship of the Ring",
+                DvdGenre.ADVENTURE,
+                5));
+        ConcurrentlyUpdatedDvdRepository concurrentlyUpdated =
+                new ConcurrentlyUpdatedDvdRepository(jdbcTemplate, Integer.MAX_VALUE);
+        DvdService dvdService = dvdService(concurrentlyUpdated);
+        String id = dvd.getId().toString();
+        DvdUpdateRequest updateRequest = new DvdUpdateRequest(null, DvdGenre.THRILLER);
+
+        //Act Assert
+        assertThatThrownBy(() -> dvdService.updateDvd(id, updateRequest))
+                .isInstanceOf(ResourceConflictException.class)
+                .hasMessage("Dvd was modified concurrently: " + id);
+        assertThat(concurrentlyUpdated.reads).hasValue(3);
+        assertThat(dvdRepository.findDvdByID(id))
+                .hasValueSatisfying(actual -> assertThat(actual.getGenre()).isEqualTo(DvdGenre.ADVENTURE));
+    }
+
+    @Test
+    void shouldCheckoutDvdAndCacheTheStockOfTheDatabase() {
+        //Arrange
+        Dvd dvd = dvdRepository.createDvd(new Dvd(
+                "Lord of the Rings: The Fellowship of the Ring",
+                DvdGenre.ADVENTURE,
+                5));
+
+        //Act
+        DvdDTO actual = underTest.checkoutDvd(dvd.getId().toString(), new DvdStockRequest(2));
+        dvd.setQuantity(3);
+
+        //Assert
+        assertThat(actual.quantity()).isEqualTo(3);
+        assertThat(dvdRepository.findDvdByID(dvd.getId().toString())).contains(dvd);
+        assertThat(redisTemplate().opsForHash().get(CACHE_NAME, dvd.getId().toString())).isEqualTo(dvd);
+    }
+
+    @Test
+    void shouldThrowResourceConflictExceptionWhenThereAreNotEnoughCopiesToCheckout() {
+        //Arrange
+        Dvd dvd = dvdRepository.createDvd(new Dvd(
+                "Lord of the Rings: The Fellowship of the Ring",
+                DvdGenre.ADVENTURE,
+                5));
+        String id = dvd.getId().toString();
+
+        //Act Assert
+        assertThatThrownBy(() -> underTest.checkoutDvd(id, new DvdStockRequest(6)))
+                .isInstanceOf(ResourceConflictException.class)
+                .hasMessage("Not enough copies in stock for dvd with id: " + id);
+        assertThat(dvdRepository.findDvdByID(id)).contains(dvd);
+    }
+
+    @Test
+    void shouldThrowResourceNotFoundExceptionWhenDvdIsNotFoundToCheckout() {
+        //Arrange
+        String id = UUID.randomUUID().toString();
+
+        //Act Assert
+        assertThatThrownBy(() -> underTest.checkoutDvd(id, new DvdStockRequest(1)))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Dvd was not found with id: " + id);
+    }
+
+    @Test
+    void shouldNotCheckoutMoreCopiesThanInStockUnderContention() throws Exception {
+        //Arrange
+        Dvd dvd = dvdRepository.createDvd(new Dvd(
+                "Lord of the Rings: The Fellowship of the Ring",
+                DvdGenre.ADVENTURE,
+                5));
+        String id = dvd.getId().toString();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger checkedOut = new AtomicInteger();
+        /*
+            The service is not proxied here, so every checkout is run in a transaction as it would be by @Transactional.
+         */
+        TransactionTemplate transactionTemplate = new TransactionTemplate(
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+
+        //Act
+        List<Future<?>> checkouts = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            checkouts.add(executor.submit(() -> {
+                try {
+                    transactionTemplate.executeWithoutResult(status ->
+                            underTest.checkoutDvd(id, new DvdStockRequest(1)));
+                    checkedOut.incrementAndGet();
+                } catch (ResourceConflictException ignored) {
+                }
+            }));
+        }
+        for (Future<?> checkout : checkouts) {
+            checkout.get();
+        }
+        executor.shutdown();
+
+        //Assert
+        dvd.setQuantity(0);
+        assertThat(checkedOut).hasValue(5);
+        assertThat(dvdRepository.findDvdByID(id)).contains(dvd);
+        assertThat(redisTemplate().opsForHash().get(CACHE_NAME, id)).isEqualTo(dvd);
+    }
+
+    @Test
+    void shouldReturnDvdAndCacheTheStockOfTheDatabase() {
+        //Arrange
+        Dvd dvd = dvdRepository.createDvd(new Dvd(
+                "Lord of the Rings: The Fellowship of the Ring",
+                DvdGenre.ADVENTURE,
+                5));
+
+        //Act
+        DvdDTO actual = underTest.returnDvd(dvd.getId().toString(), new DvdStockRequest(2));
+        dvd.setQuantity(7);
+
+        //Assert
+        assertThat(actual.quantity()).isEqualTo(7);
+        assertThat(dvdRepository.findDvdByID(dvd.getId().toString())).contains(dvd);
+        assertThat(redisTemplate().opsForHash().get(CACHE_NAME, dvd.getId().toString())).isEqualTo(dvd);
+    }
+
     @Test
     void shouldFindDvdByIDFromCache() {
         //Arrange
@@ -186,6 +513,69 @@ class DvdServiceTest extends AbstractUnitTest {
                 .hasMessage("Dvd was not found with id: " + id);
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {"1-1-1-1-1", "not-a-uuid", "3b241101e2bb42558caf4136c566a962"})
+    void shouldThrowResourceNotFoundExceptionWhenIdIsNotUuid(String id) {
+        //Act and Assert
+        assertThatThrownBy(() -> underTest.findDvdById(id))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Dvd was not found with id: " + id);
+    }
+
+    @Test
+    void shouldCacheIdOfDvdThatWasNotFound() {
+        //Arrange
+        UUID id = UUID.randomUUID();
+        assertThatThrownBy(() -> underTest.findDvdById(id.toString()))
+                .isInstanceOf(ResourceNotFoundException.class);
+        getJdbcTemplate().update(
+                "INSERT INTO dvd (id, title, genre, quantity) VALUES (?, ?, CAST(? AS genre), ?)",
+                id, "Lord of the Rings: The Two Towers", DvdGenre.ADVENTURE.name(), 5);
+
+        //Act and Assert
+        assertThatThrownBy(() -> underTest.findDvdById(id.toString()))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Dvd was not found with id: " + id);
+        assertThat(redisTemplate().hasKey("dvd:missing:" + id)).isTrue();
+    }
+
+    @Test
+    void shouldCacheDvdUnderItsCanonicalIdWhenIdIsUpperCase() {
+        //Arrange
+        Dvd dvd = dvdRepository.createDvd(new Dvd(
+                "Lord of the Rings: The Fellowship of the Ring",
+                DvdGenre.ADVENTURE,
+                5));
+        String id = dvd.getId().toString();
+
+        //Act
+        DvdDTO actual = underTest.findDvdById(id.toUpperCase());
+
+        //Assert
+        assertThat(actual.id()).isEqualTo(dvd.getId());
+        assertThat(redisTemplate().opsForHash().hasKey(CACHE_NAME, id)).isTrue();
+        assertThat(redisTemplate().opsForHash().hasKey(CACHE_NAME, id.toUpperCase())).isFalse();
+    }
+
+    @Test
+    void shouldEvictCachedDvdWhenItIsDeletedWithUpperCaseId() {
+        //Arrange
+        Dvd dvd = dvdRepository.createDvd(new Dvd(
+                "Lord of the Rings: The Fellowship of the Ring",
+                DvdGenre.ADVENTURE,
+                5));
+        String id = dvd.getId().toString();
+        underTest.findDvdById(id);
+
+        //Act
+        underTest.deleteDvd(id.toUpperCase());
+
+        //Assert
+        assertThatThrownBy(() -> underTest.findDvdById(id))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Dvd was not found with id: " + id);
+    }
+
     @Test
     void shouldFindDvdsByTitle() {
         //Arrange
@@ -198,7 +588,7 @@ class DvdServiceTest extends AbstractUnitTest {
         DvdDTO dvdDTO2 = underTest.createDvd(createRequest);
 
         //Act
-        List<DvdDTO> actual = underTest.findDvds(searchTitle);
+        List<DvdDTO> actual = underTest.findDvds(searchTitle, null, null, null).dvds();
 
         //Assert
         assertThat(actual)
@@ -215,7 +605,7 @@ class DvdServiceTest extends AbstractUnitTest {
         underTest.createDvd(createRequest);
 
         //Act
-        List<DvdDTO> actual = underTest.findDvds(searchTitle);
+        List<DvdDTO> actual = underTest.findDvds(searchTitle, null, null, null).dvds();
 
         //Assert
         assertThat(actual).isEmpty();
@@ -232,7 +622,7 @@ class DvdServiceTest extends AbstractUnitTest {
         DvdDTO dvdDTO2 = underTest.createDvd(createRequest);
 
         //Act
-        List<DvdDTO> actual = underTest.findDvds(searchTitle);
+        List<DvdDTO> actual = underTest.findDvds(searchTitle, null, null, null).dvds();
 
         //Assert
         assertThat(actual)
@@ -245,12 +635,95 @@ class DvdServiceTest extends AbstractUnitTest {
     @NullAndEmptySource
     void shouldReturnAnEmptyListWhenNoDvdsWereFound(String searchTitle) {
         //Act
-        List<DvdDTO> actual = underTest.findDvds(searchTitle);
+        List<DvdDTO> actual = underTest.findDvds(searchTitle, null, null, null).dvds();
 
         //Assert
         assertThat(actual).isEmpty();
     }
 
+    @Test
+    void shouldFindDvdsBySimilarTitleMostSimilarFirst() {
+        //Arrange
+        List<DvdCreateRequest> createRequests = generateDvds();
+        createRequests.forEach(underTest::createDvd);
+
+        //Act
+        List<DvdDTO> actual = underTest.findDvds("Two Towres", DvdSearchMode.SIMILAR, null, 1).dvds();
+
+        //Assert
+        assertThat(actual).extracting(DvdDTO::title).containsExactly("Lord of the Rings: The Two Towers");
+    }
+
+    @Test
+    void shouldServeRepeatedSearchFromSearchCache() {
+        //Arrange
+        underTest.createDvd(generateDvd());
+        List<DvdDTO> expected = underTest.findDvds("  LORD of ", null, null, null).dvds();
+        dvdRepository.deleteAllDvds();
+
+        //Act
+        List<DvdDTO> actual = underTest.findDvds("lord OF", null, null, null).dvds();
+
+        //Assert
+        assertThat(actual).hasSize(1).isEqualTo(expected);
+    }
+
+    @Test
+    void shouldSuggestDvdsLoadedOnRebuildAndCreatedAfterwards() {
+        //Arrange
+        dvdRepository.createDvd(new Dvd("Lord of the Rings: The Two Towers", DvdGenre.ADVENTURE, 5));
+        underTest.rebuildTitleIndex();
+        underTest.createDvd(generateDvd());
+
+        //Act
+        List<DvdSuggestion> actual = underTest.suggestDvds("  lord  of the ", 10);
+
+        //Assert
+        assertThat(actual).extracting(DvdSuggestion::title).containsExactly(
+                "Lord of the Rings: The Fellowship of the Ring",
+                "Lord of the Rings: The Two Towers");
+    }
+
+    @Test
+    void shouldFindDvdsOnePageAtATime() {
+        //Arrange
+        DvdDTO dvdDTO1 = underTest.createDvd(generateDvds().get(0));
+        DvdDTO dvdDTO2 = underTest.createDvd(generateDvds().get(1));
+
+        //Act
+        DvdPage firstPage = underTest.findDvds(null, null, null, 1);
+        DvdPage secondPage = underTest.findDvds(null, null, firstPage.next(), 1);
+
+        //Assert
+        assertThat(firstPage.dvds()).containsExactly(dvdDTO1);
+        assertThat(firstPage.next()).isNotNull();
+        assertThat(secondPage.dvds()).containsExactly(dvdDTO2);
+        assertThat(secondPage.next()).isNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 201})
+    void shouldThrowIllegalArgumentExceptionWhenLimitIsOutOfRange(Integer limit) {
+        //Act Assert
+        assertThatThrownBy(() -> underTest.findDvds(null, null, null, limit))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Limit must be between 1 and 200");
+    }
+
+    @Test
+    void shouldExportAllDvds() {
+        //Arrange
+        DvdDTO dvdDTO1 = underTest.createDvd(generateDvds().get(0));
+        DvdDTO dvdDTO2 = underTest.createDvd(generateDvds().get(1));
+        List<DvdDTO> actual = new ArrayList<>();
+
+        //Act
+        underTest.exportDvds(actual::add);
+
+        //Assert
+        assertThat(actual).containsExactlyInAnyOrder(dvdDTO1, dvdDTO2);
+    }
+
     @Test
     void shouldDeleteDvdAndCache() {
         // Arrange
@@ -284,6 +757,32 @@ class DvdServiceTest extends AbstractUnitTest {
                 .hasMessage("Dvd was not found with id: " + id);
     }
 
+    private DvdService dvdService(DvdRepository dvdRepository) {
+        return new DvdService(
+                dvdRepository,
+                new DvdCache(
+                        new RedisHashDvdCacheStore(redisTemplate()),
+                        redisTemplate(),
+                        new DvdCacheProperties(),
+                        new SimpleMeterRegistry()),
+                new DvdStock(
+                        new StringRedisTemplate(redisTemplate().getConnectionFactory()),
+                        new DvdStockProperties()),
+                new DvdSearchCache(
+                        new StringRedisTemplate(redisTemplate().getConnectionFactory()),
+                        new ObjectMapper(),
+                        searchCacheProperties()),
+                new DvdTitleIndex(),
+                Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    private DvdCacheProperties searchCacheProperties() {
+        DvdCacheProperties cacheProperties = new DvdCacheProperties();
+        cacheProperties.getSearch().setEnabled(true);
+
+        return cacheProperties;
+    }
+
     private DvdCreateRequest generateDvd() {
         return new DvdCreateRequest(
                 "Lord of the Rings: The Fellowship of the Ring",
@@ -304,5 +803,32 @@ class DvdServiceTest extends AbstractUnitTest {
 
         return List.of(createRequest, createRequest1);
     }
-}
 
+    /*
+        Sets the quantity of the Dvd to 9 right after each of the first concurrentUpdates reads, as if another request
+        updated the row between the read and the write of DvdService.updateDvd().
+     */
+    private static class ConcurrentlyUpdatedDvdRepository extends DvdRepository {
+        private final JdbcTemplate jdbcTemplate;
+        private final int concurrentUpdates;
+        private final AtomicInteger reads = new AtomicInteger();
+
+        ConcurrentlyUpdatedDvdRepository(JdbcTemplate jdbcTemplate, int concurrentUpdates) {
+            super(jdbcTemplate);
+            this.jdbcTemplate = jdbcTemplate;
+            this.concurrentUpdates = concurrentUpdates;
+        }
+
+        @Override
+        public Optional<Dvd> findDvdByID(String dvdID) {
+            Optional<Dvd> dvd = super.findDvdByID(dvdID);
+            if (reads.incrementAndGet() <= concurrentUpdates) {
+                jdbcTemplate.update(
+                        "UPDATE dvd SET quantity = 9, version = version + 1 WHERE id = CAST(? AS uuid)",
+                        dvdID);
+            }
+
+            return dvd;
+        }
+    }
+}
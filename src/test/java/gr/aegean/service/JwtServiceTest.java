@@ -6,6 +6,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtClaimsSet;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
@@ -33,7 +35,7 @@ class JwtServiceTest {
 
     @BeforeEach
     void setup() {
-        underTest = new JwtService(jwtEncoder);
+        underTest = new JwtService(jwtEncoder, JwsHeader.with(SignatureAlgorithm.ES256).keyId("key").build());
     }
 
     @Test
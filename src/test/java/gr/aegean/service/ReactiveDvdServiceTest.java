@@ -0,0 +1,220 @@
+package gr.aegean.service;
+
+import gr.aegean.AbstractUnitTest;
+import gr.aegean.cache.DvdCache;
+import gr.aegean.cache.DvdCacheFormat;
+import gr.aegean.cache.DvdCacheLayout;
+import gr.aegean.cache.DvdRedisSerializer;
+import gr.aegean.cache.DvdStock;
+import gr.aegean.cache.ReactiveDvdCacheStore;
+import gr.aegean.cache.RedisHashDvdCacheStore;
+import gr.aegean.config.DvdCacheProperties;
+import gr.aegean.config.DvdStockProperties;
+import gr.aegean.entity.Dvd;
+import gr.aegean.exception.ResourceNotFoundException;
+import gr.aegean.model.dto.dvd.DvdDTO;
+import gr.aegean.model.dvd.DvdGenre;
+import gr.aegean.repository.DvdRepository;
+import gr.aegean.repository.ReactiveDvdRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+
+class ReactiveDvdServiceTest extends AbstractUnitTest {
+    private DvdRepository dvdRepository;
+    private ReactiveDvdRepository reactiveDvdRepository;
+    private ReactiveDvdCacheStore reactiveDvdCacheStore;
+    private DvdCache dvdCache;
+    private StringRedisTemplate stringRedisTemplate;
+    private final String CACHE_NAME = "dvds";
+    private ReactiveDvdService underTest;
+
+    @BeforeEach
+    void setup() {
+        String url = String.format("r2dbc:postgresql://%s:%s@%s:%d/%s",
+                postgreSQLContainer.getUsername(),
+                postgreSQLContainer.getPassword(),
+                postgreSQLContainer.getHost(),
+                postgreSQLContainer.getFirstMappedPort(),
+                postgreSQLContainer.getDatabaseName());
+        reactiveDvdRepository = new ReactiveDvdRepository(new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(url))
+                .maxSize(2)
+                .build()));
+
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redisContainer.getHost(), redisContainer.getFirstMappedPort()));
+        connectionFactory.afterPropertiesSet();
+        reactiveDvdCacheStore = new ReactiveDvdCacheStore(
+                connectionFactory,
+                DvdCacheLayout.HASH,
+                new DvdRedisSerializer(DvdCacheFormat.JSON),
+                "dvd:");
+
+        DvdCacheProperties cacheProperties = new DvdCacheProperties();
+        cacheProperties.getNear().setEnabled(false);
+        dvdCache = new DvdCache(
+                new RedisHashDvdCacheStore(redisTemplate()),
+                redisTemplate(),
+                cacheProperties,
+                new SimpleMeterRegistry());
+        stringRedisTemplate = new StringRedisTemplate(redisTemplate().getConnectionFactory());
+        underTest = new ReactiveDvdService(
+                reactiveDvdRepository,
+                reactiveDvdCacheStore,
+                dvdCache,
+                new DvdStock(stringRedisTemplate, new DvdStockProperties()));
+
+        dvdRepository = new DvdRepository(getJdbcTemplate());
+        redisTemplate().delete(CACHE_NAME);
+        redisTemplate().delete(DvdStock.STOCK_KEY);
+        redisTemplate().delete(redisTemplate().keys(DvdCache.MISSING_KEY_PREFIX + "*"));
+        dvdRepository.deleteAllDvds();
+    }
+
+    @AfterEach
+    void tearDown() {
+        reactiveDvdRepository.close();
+        reactiveDvdCacheStore.close();
+    }
+
+    @Test
+    void shouldFindDvdByIdAndCacheIt() throws InterruptedException {
+        //Arrange
+        Dvd dvd = dvdRepository.createDvd(generateDvd("Lord of the Rings: The Fellowship of the Ring"));
+        String dvdId = dvd.getId().toString();
+
+        //Act
+        DvdDTO actual = underTest.findDvdById(dvdId).block();
+
+        //Assert
+        assertThat(actual).isNotNull();
+        assertThat(actual.id()).isEqualTo(dvd.getId());
+        assertThat(actual.title()).isEqualTo(dvd.getTitle());
+        assertThat(actual.genre()).isEqualTo(dvd.getGenre());
+        assertThat(actual.quantity()).isEqualTo(dvd.getQuantity());
+        assertThat(isCachedWithin(dvdId, Duration.ofSeconds(5))).isTrue();
+    }
+
+    @Test
+    void shouldFindCachedDvdById() {
+        //Arrange
+        Dvd dvd = new Dvd(UUID.randomUUID(), "Lord of the Rings: The Two Towers", DvdGenre.ADVENTURE, 5);
+        redisTemplate().opsForHash().put(CACHE_NAME, dvd.getId().toString(), dvd);
+
+        //Act
+        DvdDTO actual = underTest.findDvdById(dvd.getId().toString()).block();
+
+        //Assert
+        assertThat(actual).isNotNull();
+        assertThat(actual.title()).isEqualTo(dvd.getTitle());
+    }
+
+    @Test
+    void shouldThrowResourceNotFoundExceptionWhenDvdIsNotFound() {
+        //Arrange
+        String dvdId = UUID.randomUUID().toString();
+
+        //Act Assert
+        assertThatThrownBy(() -> underTest.findDvdById(dvdId).block())
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Dvd was not found with id: " + dvdId);
+    }
+
+    @Test
+    void shouldCacheIdThatWasNotFoundAsMissing() {
+        //Arrange
+        String dvdId = UUID.randomUUID().toString();
+
+        //Act
+        assertThatThrownBy(() -> underTest.findDvdById(dvdId).block())
+                .isInstanceOf(ResourceNotFoundException.class);
+
+        //Assert
+        assertThat(redisTemplate().hasKey(DvdCache.MISSING_KEY_PREFIX + dvdId)).isTrue();
+    }
+
+    @Test
+    void shouldReplaceQuantityWithStockWhenItIsWrittenBehind() {
+        //Arrange
+        Dvd dvd = new Dvd(UUID.randomUUID(), "Lord of the Rings: The Two Towers", DvdGenre.ADVENTURE, 5);
+        redisTemplate().opsForHash().put(CACHE_NAME, dvd.getId().toString(), dvd);
+        stringRedisTemplate.opsForHash().put(DvdStock.STOCK_KEY, dvd.getId().toString(), "2");
+        DvdStockProperties stockProperties = new DvdStockProperties();
+        stockProperties.getWriteBehind().setEnabled(true);
+        ReactiveDvdService reactiveDvdService = new ReactiveDvdService(
+                reactiveDvdRepository,
+                reactiveDvdCacheStore,
+                dvdCache,
+                new DvdStock(stringRedisTemplate, stockProperties));
+
+        //Act
+        DvdDTO actual = reactiveDvdService.findDvdById(dvd.getId().toString()).block();
+
+        //Assert
+        assertThat(actual).isNotNull();
+        assertThat(actual.quantity()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldStreamDvdsOrderedByTitle() {
+        //Arrange
+        dvdRepository.createDvd(generateDvd("Lord of the Rings: The Two Towers"));
+        dvdRepository.createDvd(generateDvd("Lord of the Rings: The Fellowship of the Ring"));
+        dvdRepository.createDvd(generateDvd("Pulp Fiction"));
+
+        //Act
+        List<DvdDTO> all = underTest.findDvds(null).collectList().block();
+        List<DvdDTO> matching = underTest.findDvds("lord of the").collectList().block();
+
+        //Assert
+        assertThat(all)
+                .extracting(DvdDTO::title)
+                .containsExactly(
+                        "Lord of the Rings: The Fellowship of the Ring",
+                        "Lord of the Rings: The Two Towers",
+                        "Pulp Fiction");
+        assertThat(matching)
+                .extracting(DvdDTO::title)
+                .containsExactly(
+                        "Lord of the Rings: The Fellowship of the Ring",
+                        "Lord of the Rings: The Two Towers");
+    }
+
+    /*
+        The Dvd is cached in the background, after it has been emitted.
+     */
+    private boolean isCachedWithin(String dvdId, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (redisTemplate().opsForHash().hasKey(CACHE_NAME, dvdId)) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+
+        return false;
+    }
+
+    private Dvd generateDvd(String title) {
+        return new Dvd(title, DvdGenre.ADVENTURE, 5);
+    }
+}
@@ -0,0 +1,127 @@
+package gr.aegean.utility;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+
+
+class TextNormalizerTest {
+    /*
+        Every character that either the title or the whitespace character class treats specially, plus a few that
+        are removed.
+     */
+    private static final String ALPHABET = "aZ09+.':- \t\n\u000B\f\r\u0001!#$_ß";
+
+    @ParameterizedTest
+    @EmptySource
+    @ValueSource(strings = {
+            "Lord of the Rings: The Fellowship of the Ring",
+            "  Harry   Potter  ",
+            "!#$&$@",
+            "!! Harry\t\n Potter",
+            "Harry \u0001 Potter",
+            "Harry !! Potter"
+    })
+    void shouldSanitizeTitleLikeTheRegularExpressions(String title) {
+        //Act
+        String actual = TextNormalizer.sanitizeTitle(title);
+
+        //Assert
+        assertThat(actual).isEqualTo(sanitizeTitleWithRegex(title));
+    }
+
+    @Test
+    void shouldSanitizeRandomTitlesLikeTheRegularExpressions() {
+        //Arrange
+        Random random = new Random(42);
+
+        for (int i = 0; i < 10_000; i++) {
+            String title = randomString(random);
+
+            //Act Assert
+            assertThat(TextNormalizer.sanitizeTitle(title)).isEqualTo(sanitizeTitleWithRegex(title));
+        }
+    }
+
+    @Test
+    void shouldReturnSameInstanceWhenTitleIsAlreadySanitized() {
+        //Arrange
+        String title = "Lord of the Rings: The Fellowship of the Ring";
+
+        //Act
+        String actual = TextNormalizer.sanitizeTitle(title);
+
+        //Assert
+        assertThat(actual).isSameAs(title);
+    }
+
+    @Test
+    void shouldConvertRandomValuesToEnumNamesLikeTheRegularExpression() {
+        //Arrange
+        Random random = new Random(42);
+
+        for (int i = 0; i < 10_000; i++) {
+            String value = randomString(random);
+
+            //Act Assert
+            assertThat(TextNormalizer.toEnumName(value))
+                    .isEqualTo(value.trim().replaceAll("\\s+", "_").toUpperCase());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "John", "mcDonald"})
+    void shouldAcceptOnlyAsciiLetters(String name) {
+        //Act Assert
+        assertThat(TextNormalizer.isAsciiLetters(name)).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"John1", "Mary Ann", "O'Neil", "Jürgen"})
+    void shouldRejectNonAsciiLetters(String name) {
+        //Act Assert
+        assertThat(TextNormalizer.isAsciiLetters(name)).isFalse();
+    }
+
+    @Test
+    void shouldNormalizeUuidToItsCanonicalForm() {
+        //Arrange
+        String uuid = "3F2504E0-4F89-11D3-9A0C-0305E82C3301";
+
+        //Act
+        String actual = TextNormalizer.normalizeUuid(uuid);
+
+        //Assert
+        assertThat(actual).isEqualTo("3f2504e0-4f89-11d3-9a0c-0305e82c3301");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "1-1-1-1-1", "not-a-uuid", "3f2504e0-4f89-11d3-9a0c-0305e82c330z"})
+    void shouldRejectValueThatIsNotUuid(String value) {
+        //Act Assert
+        assertThat(TextNormalizer.normalizeUuid(value)).isNull();
+    }
+
+    private static String sanitizeTitleWithRegex(String title) {
+        title = title.trim();
+        title = title.replaceAll("[^a-zA-Z0-9\\s+.':-]", "");
+        title = title.replaceAll("\\s+", " ");
+
+        return title;
+    }
+
+    private static String randomString(Random random) {
+        StringBuilder value = new StringBuilder();
+        int length = random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            value.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+
+        return value.toString();
+    }
+}